@@ -34,6 +34,8 @@
 // "mutateStep": How much should weights differ between mutations?
 // State Heuristics: What's a good measure of any state?
 // Mu, Lambda, Population Size, and Generation Length
+// (all but the heuristics can be set without recompiling: Algore.popSize, Algore.muSize,
+// Algore.noGenerations and Algore.mutateStep in a Common.Config)
 
 // Potential Issues: The inputs to the neural nets are specific states
 // However, the states of the game will change over time -- there's no
@@ -58,21 +60,52 @@ import java.util.*;
 import java.util.ArrayList;
 // import needed for random number generation
 import java.util.Random;
-
-public class Agent extends AbstractPlayer {
-
-	final static int popSize = 6;
-	final static int muSize = 2;
-	final static int lamSize = popSize - muSize;
-	final static int noGenerations = 4;
-	final static double mutateStep = 1.5;
-	static Random rng = new Random();
-	static NeuralNet[] population = new NeuralNet[popSize];
-	static StateObservation[] popCopies = new StateObservation[popSize];
+// import needed for remembering states we have already evaluated
+import Common.StateCache;
+// import needed for finding the closest sprites quickly
+import Common.SpatialIndex;
+// import needed for deciding how much work still fits in this tick
+import Common.TimeBudget;
+// import needed for reporting how much work we did
+import Common.Instrumented;
+import Common.TickStats;
+import Common.ActEvent;
+// import needed for always answering before the deadline
+import Common.Watchdog;
+// import needed for playing a game again with the same random numbers
+import Common.Seeds;
+// import needed for reading the tunable settings
+import Common.Config;
+
+public class Agent extends AbstractPlayer implements Instrumented {
+
+	// the tunable settings (see Common.Config)
+	final int popSize;
+	final int muSize;
+	final int lamSize;
+	final int noGenerations;
+	final double mutateStep;
+	// these belong to this game only -- nothing mutable is static, so that several
+	// games can be played in the same JVM (even at the same time) without interfering
+	Random rng = Seeds.newRandom();
+	NeuralNet[] population;
+	StateObservation[] popCopies;
 
 	final int origResourceNo;
 	final int origNPCNo;
 
+	// remember the inputs and values of states we have already looked at
+	final static int cacheSize = 1024;
+	StateCache<double[]> inputCache = new StateCache<double[]>(cacheSize);
+	// reused to find the closest sprites of every state we evaluate
+	SpatialIndex index = new SpatialIndex();
+	// learns how long copies, advances and generations take in this game
+	TimeBudget budget = new TimeBudget();
+	// how much work the last act() did
+	TickStats stats = new TickStats("Algore");
+	// (when switched on) runs the search on its own thread, and answers with the best net's move at the deadline
+	Watchdog watchdog = new Watchdog("Algore", budget);
+
 	public static class NeuralNet implements Comparable<NeuralNet> {
 		// input layer -> hidden layer -> output layer
 		// these are the values actually held at each node
@@ -102,7 +135,7 @@ public class Agent extends AbstractPlayer {
 		}
 
 		// for creating a copied but mutated neural net
-		public NeuralNet(NeuralNet parent) {
+		public NeuralNet(NeuralNet parent, Random rng, double mutateStep) {
 			inputs = new double[parent.inputs.length];
 			hiddenLayer = new double[parent.hiddenLayer.length];
 			outputs = new double[parent.outputs.length];
@@ -179,24 +212,37 @@ public class Agent extends AbstractPlayer {
 		return origState.getAvailableActions().get(bestAction);
 	}
 
+	// how much the best output of this net beats the second best (the outputs are between 0 and 1)
+	public double outputMargin (NeuralNet thisNet) {
+		double first = 0, second = 0;
+		for (int i = 0; i < thisNet.outputs.length; i++) {
+			if (thisNet.outputs[i] > first) { second = first; first = thisNet.outputs[i]; }
+			else if (thisNet.outputs[i] > second) { second = thisNet.outputs[i]; }
+		}
+		return first - second;
+	}
+
 	// constructor, where the controller is first created to play the entire game
-	public Agent(StateObservation states, ElapsedCpuTimer elapsedTime) {
+	public Agent(StateObservation states, ElapsedCpuTimer elapsedTime) { this(states, elapsedTime, Config.fromSystem()); }
+
+	// the same, with the settings from 'config'
+	public Agent(StateObservation states, ElapsedCpuTimer elapsedTime, Config config) {
+		// we need at least 2 parents (mu) and 1 child (lambda) for the mutations
+		popSize = Math.max(3, config.getInt("Algore.popSize", 6));
+		muSize = Math.min(popSize - 1, Math.max(2, config.getInt("Algore.muSize", 2)));
+		lamSize = popSize - muSize;
+		noGenerations = Math.max(1, config.getInt("Algore.noGenerations", 4));
+		mutateStep = config.getDouble("Algore.mutateStep", 1.5);
+		population = new NeuralNet[popSize];
+		popCopies = new StateObservation[popSize];
 		// do all initializations here
+		index.build(states);
 		// get number of resources at the start of the game
-		Vector2d myPosition = states.getAvatarPosition();
-		ArrayList<Observation>[] resources = states.getResourcesPositions(myPosition);
-		int noResource = 0;
-		if (resources != null)
-			for (int i = 0; i < resources.length; i++) { noResource += resources[i].size(); }
-		origResourceNo = noResource;
-		//System.out.println("Number of Resources: " + noResource);
+		origResourceNo = index.count(Types.TYPE_RESOURCE);
+		//System.out.println("Number of Resources: " + origResourceNo);
 		// get number of NPCs at the start of the game
-		ArrayList<Observation>[] npcs = states.getNPCPositions(myPosition);
-		int noNPC = 0;
-		if (npcs != null)
-			for (int i = 0; i < npcs.length; i++) { noNPC += npcs[i].size(); }
-		origNPCNo = noNPC;
-		//System.out.println("Number of NPCs: " + noNPC);
+		origNPCNo = index.count(Types.TYPE_NPC);
+		//System.out.println("Number of NPCs: " + origNPCNo);
 		// create the first neural net
 		// 7 inputs, 5 hidden neurons, and outputs = # of actions
 		int noActions = states.getAvailableActions().size();
@@ -204,7 +250,7 @@ public class Agent extends AbstractPlayer {
 		population[0] = adam;
 		// create the other neural nets (they will all have mutated weights)
 		for (int i = 1; i < popSize; i++)
-			population[i] = new NeuralNet(population[i-1]);
+			population[i] = new NeuralNet(population[i-1], rng, mutateStep);
 		//System.out.println("Done!");
 	}
 
@@ -212,65 +258,42 @@ public class Agent extends AbstractPlayer {
 	// (0) distance to closest NPC, (1) number of NPC, (2) score, (3) distance to closest portal, 
 	// (4) distance to closest moving object, (5) distance to closest resource, 
 	// (6) number of resources, (7) gameState (8 inputs)
+	// note: the returned array may be shared with the cache, so do not modify it
 	public double[] stateValue(StateObservation thisState) {
+		long fingerprint = StateCache.fingerprint(thisState);
+		double[] inputs = inputCache.get(fingerprint);
+		if (inputs == null) {
+			inputs = extractInputs(thisState);
+			inputCache.put(fingerprint, inputs);
+		}
+		return inputs;
+	}
+
+	// actually build the inputs of a state that is not in the cache
+	public double[] extractInputs(StateObservation thisState) {
 		double[] inputs = new double[8];
 
-		Vector2d myPosition = thisState.getAvatarPosition();
+		// find the closest sprites from the grid, instead of sorting position lists
+		index.build(thisState);
 
 		// 0. Distance to closest NPC
 		// 1. Number of NPC
-		ArrayList<Observation>[] npcPositions = thisState.getNPCPositions(myPosition);
-		int noNPC = 0;
-		double distanceNPC = 0;
-		if (npcPositions != null) {
-			for (int i = 0; i < npcPositions.length; i++) { noNPC += npcPositions[i].size(); }
-			if (npcPositions[0].size() != 0) {
-				Vector2d closestNPC = npcPositions[0].get(0).position;
-				distanceNPC = myPosition.dist(closestNPC);
-			}
-		}
-		inputs[0] = distanceNPC;
-		inputs[1] = noNPC;
+		inputs[0] = closestOfFirstType(Types.TYPE_NPC);
+		inputs[1] = index.count(Types.TYPE_NPC);
 
 		// 2. Score input
 		inputs[2] = thisState.getGameScore();
 
 		// 3. Distance to closest portal
-		ArrayList<Observation>[] portalPositions = thisState.getPortalsPositions(myPosition);
-		double distancePortal = 0;
-		if (portalPositions != null) {
-			if (portalPositions[0].size() != 0) {
-				Vector2d closestPortal = portalPositions[0].get(0).position;
-				distancePortal = myPosition.dist(closestPortal);
-			}
-		}
-		inputs[3] = distancePortal;
+		inputs[3] = closestOfFirstType(Types.TYPE_PORTAL);
 
 		// 4. Distance to closest moving object
-		ArrayList<Observation>[] movePositions = thisState.getMovablePositions(myPosition);
-		double distanceMove = 0;
-		if (movePositions != null) {
-			if (movePositions[0].size() != 0) {
-				Vector2d closestMove = movePositions[0].get(0).position;
-				distanceMove = myPosition.dist(closestMove);
-			}
-		}
-		inputs[4] = distanceMove;
+		inputs[4] = closestOfFirstType(Types.TYPE_MOVABLE);
 
 		// 5. Distance to closest resource
 		// 6. Number of resources
-		ArrayList<Observation>[] resourcesPositions = thisState.getResourcesPositions(myPosition);
-		int noResource = 0;
-		double distanceResource = 0;
-		if (resourcesPositions != null) {
-			for (int i = 0; i < resourcesPositions .length; i++) { noResource += resourcesPositions [i].size(); }
-			if (resourcesPositions [0].size() != 0) {
-				Vector2d closestResource = resourcesPositions[0].get(0).position;
-				distanceResource = myPosition.dist(closestResource);
-			}
-		}
-		inputs[5] = distanceResource;
-		inputs[6] = noResource;
+		inputs[5] = closestOfFirstType(Types.TYPE_RESOURCE);
+		inputs[6] = index.count(Types.TYPE_RESOURCE);
 
 		// 7. Game State input
 		if (thisState.getGameWinner() == Types.WINNER.PLAYER_WINS) { inputs[7] = 9999; }
@@ -280,6 +303,12 @@ public class Agent extends AbstractPlayer {
 		return inputs;
 	}
 
+	// distance to the closest sprite of the first type of a category (0 if there is none)
+	double closestOfFirstType(int category) {
+		double distance = index.nearestDistance(category, 0);
+		return (distance < 0) ? 0 : distance;
+	}
+
 	// we can use some sort of heuristics to calculate how "good" this state is
 	// right now, I only consider the score, win/loss states, # of npcs, and # of resources
 	public double evaluateState (StateObservation origState) {
@@ -293,15 +322,12 @@ public class Agent extends AbstractPlayer {
 		// give value to score of the game
 		value += origState.getGameScore();
 
-		Vector2d myPosition = origState.getAvatarPosition();
+		index.build(origState);
 
 		// give value to number of NPCs currently existing
 		// 1 - (NPCs now)/(NPCs beginning)
 		if (origResourceNo != 0) {
-			ArrayList<Observation>[] resources = origState.getResourcesPositions(myPosition);
-			int noResource = 0;
-			if (resources != null)
-				for (int i = 0; i < resources.length; i++) { noResource += resources[i].size(); }
+			int noResource = index.count(Types.TYPE_RESOURCE);
 			double resourceSpec = 1 - noResource/origResourceNo; // the less resources, the higher the number
 			value += resourceSpec * 2; // can multiply this to weight it
 		}
@@ -309,10 +335,7 @@ public class Agent extends AbstractPlayer {
 		// give value to number of resources remaining
 		// 1 - (resources now)/(resources beginning)
 		if (origNPCNo != 0) {
-			ArrayList<Observation>[] npcs = origState.getNPCPositions(myPosition);
-			int noNPC = 0;
-			if (npcs != null)
-				for (int i = 0; i < npcs.length; i++) { noNPC += npcs[i].size(); }
+			int noNPC = index.count(Types.TYPE_NPC);
 			double npcSpec = 1 - noNPC/origNPCNo; // the less NPCs, the higher the number
 			value += npcSpec * 0.5; // can multiply this to weight it
 		}
@@ -323,20 +346,40 @@ public class Agent extends AbstractPlayer {
 	// at every 'state' the controller must make an action -- this method is thus called
 	// this MUST return in 40 ms to correctly perform an action -- this is given by 'origTime'
 	public Types.ACTIONS act(StateObservation origState, ElapsedCpuTimer origTime) {
+		return watchdog.act(() -> search(origState, origTime), origTime);
+	}
+
+	// the search of one tick (on the watchdog's thread, if it is switched on)
+	public Types.ACTIONS search(StateObservation origState, ElapsedCpuTimer origTime) {
+		ActEvent event = new ActEvent();
+		event.begin();
 
-		// while time still permits
-		while (origTime.remainingTimeMillis() > 1.0) {
+		budget.startTick(origTime);
+		// until the first generation is done, the best net of last tick is all we have
+		watchdog.publish(chooseAction(origState, population[popSize-1]));
+
+		// while time still permits another generation
+		while (budget.fits(TimeBudget.ITERATION)) {
+			long generationStart = budget.start();
 
 			// make 1 copy of the original state for each neural net to explore
 			// in future iterations, this serves to refresh the state cleanly
-			for (int i = 0; i < popSize; i++)
+			for (int i = 0; i < popSize; i++) {
+				long t = budget.begin(TimeBudget.COPY);
 				popCopies[i] = origState.copy();
+				budget.end(TimeBudget.COPY, t);
+			}
 
 			// for each neural net
 			for (int i = 0; i < popSize; i++) {
+				// how many of this net's advances still fit (we ask once per net, not before every
+				// advance -- and not once for the whole generation, so a bad estimate costs a few
+				// advances at most)
+				int advances = budget.howMany(TimeBudget.ADVANCE, noGenerations);
+				boolean outOfTime = advances < noGenerations;
 				// for the number of generations we wish to iterate:
 				for (int j = 0; j < noGenerations; j++) {
-					if (popCopies[i].isGameOver()) break;
+					if (popCopies[i].isGameOver() || advances <= 0 || budget.isStopped()) break;
 					// get information about the state associated with this net
 					double[] inputs = stateValue(popCopies[i]);
 					// use state information as inputs to this neural net
@@ -344,27 +387,46 @@ public class Agent extends AbstractPlayer {
 					population[i].fullExcitation(inputs);
 					// have the neural net pick an action to perform based on outputs
 					// and advance the state based on the action selected
-					popCopies[i].advance( chooseAction(popCopies[i], population[i]) );
-					if (origTime.remainingTimeMillis() < 1.0) break;
+					Types.ACTIONS nextAction = chooseAction(popCopies[i], population[i]);
+					long t = budget.begin(TimeBudget.ADVANCE);
+					popCopies[i].advance( nextAction );
+					budget.end(TimeBudget.ADVANCE, t);
+					advances--;
 				}
 				// evaluate the score of this neural net
 				population[i].score = evaluateState(popCopies[i]);
-				if (origTime.remainingTimeMillis() < 1.0) break;
+				if (outOfTime || budget.isStopped()) break;
 			}
 
 			//System.out.println("One universe to rule them all");
 
 			// sort all neural nets by their score (with the best at the end)
 			Arrays.sort(population);
+			watchdog.publish(chooseAction(origState, population[popSize-1]));
 			// replace 'lamSize' neural nets with mutations from either of the best neural nets
 			for (int i = 0; i < lamSize; i++) {
 				int offset = rng.nextInt(muSize-1)+1;
-				population[i] = new NeuralNet(population[popSize-offset]);
+				population[i] = new NeuralNet(population[popSize-offset], rng, mutateStep);
 			}
+			budget.record(TimeBudget.ITERATION, generationStart);
 		}
 
+		// remember how this tick went (the population is sorted, so the best net is at the end)
+		stats.record(budget);
+		stats.tick = origState.getGameTick();
+		stats.treeSize = popSize;
+		stats.bestScore = population[popSize-1].score;
+		double totalScore = 0;
+		for (int i = 0; i < popSize; i++) totalScore += population[i].score;
+		stats.meanScore = totalScore / popSize;
+		stats.confidence = outputMargin(population[popSize-1]);
+		stats.watchdogOverruns = watchdog.overruns();
+		stats.emit(event);
+
 		// we will just have the "best" neural net do the move it wants to do for the original state
 		return chooseAction(origState, population[popSize-1]);
 	}
 
+	public TickStats tickStats() { return stats; }
+
 }
\ No newline at end of file
@@ -0,0 +1,85 @@
+/*********************************************************************
+** Code written by Wells Lucas Santo
+** This code was written as part of the CS9223 course at NYU.
+** If you wish to reproduce this code in any way, please give credit.
+**********************************************************************/
+
+// A Java Flight Recorder event, emitted once per act() by every controller, that tells us how
+// much searching was done in that tick.
+
+// Record with: java -XX:StartFlightRecording=filename=run.jfr ...
+// and look at it with 'jfr print --events gvgai.Act run.jfr', JDK Mission Control, or
+// Harness.TelemetryReport (per-game histograms).
+
+// Note: when no recording is running, the framework leaves begin() and commit() empty and
+// shouldCommit() is false, so the only cost is an allocation that the JIT can remove.
+// That makes it fine to leave the events in, even in real competition runs. (Only the very first
+// event is slow, as it sets up the recorder's classes -- TickStats makes that one while the
+// controller is being built.)
+
+package Common;
+
+// imports needed for Java Flight Recorder events
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("gvgai.Act")
+@Label("Controller act()")
+@Category({"GVG-AI", "Controllers"})
+@Description("Search work done by a controller in one tick")
+@StackTrace(false)
+public class ActEvent extends Event {
+
+	@Label("Agent")
+	public String agent;
+
+	@Label("Game Id")
+	@Description("Identifies one controller instance, that is, one game")
+	public long gameId;
+
+	@Label("Tick")
+	public int tick;
+
+	@Label("Iterations")
+	@Description("MCTS iterations, or generations of the evolutionary controllers")
+	public long iterations;
+
+	@Label("Copies")
+	public long copies;
+
+	@Label("Advances")
+	public long advances;
+
+	@Label("Surrogate Steps")
+	@Description("Steps played on the cheap surrogate forward model instead of advance()")
+	public long surrogateSteps;
+
+	@Label("Tree Size")
+	@Description("Nodes in the search tree, or size of the population")
+	public long treeSize;
+
+	@Label("Best Score")
+	public double bestScore;
+
+	@Label("Mean Score")
+	public double meanScore;
+
+	@Label("Confidence")
+	@Description("How sure the controller is of its action, from 0 to 1")
+	public double confidence;
+
+	@Label("Remaining Millis")
+	@Description("Time left before the deadline when act() returned")
+	public double remainingMillis;
+
+	@Label("Overrun")
+	public boolean overrun;
+
+	@Label("Watchdog Overruns")
+	@Description("Ticks so far in this game where the watchdog answered before the search was done")
+	public long watchdogOverruns;
+}
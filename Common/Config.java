@@ -0,0 +1,132 @@
+/*********************************************************************
+** Code written by Wells Lucas Santo
+** This code was written as part of the CS9223 course at NYU.
+** If you wish to reproduce this code in any way, please give credit.
+**********************************************************************/
+
+// The tunable settings of the controllers (population sizes, generations, depths, weights...),
+// so they can be changed without recompiling -- and tuned per game by Harness.Autotuner.
+
+// How it works:
+// A Config is a set of 'key=value' settings, where every key starts with the controller it is
+// for (like 'Savague.expansionDepth' or 'Algore.mutateStep'), so one file can hold the settings of
+// all controllers. A controller asks for each of its settings once, when it is created, and gives
+// its own default -- anything that is not in the Config keeps its old value.
+// When the framework creates a controller, it gets the settings from the properties file named by
+// -Dgvgai.config (for example one that the autotuner wrote for this game), or none at all.
+
+// Usage:
+//    popSize = config.getInt("Algore.popSize", 6);
+
+package Common;
+
+// import needed for dealing with some java functionality
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+public class Config {
+
+	final Properties values;
+
+	// no settings: every controller plays with its defaults
+	public Config() { this(new Properties()); }
+
+	public Config(Properties values) { this.values = values; }
+
+	// the settings named by -Dgvgai.config (or none, if it is not set)
+	public static Config fromSystem() {
+		String file = System.getProperty("gvgai.config");
+		if (file == null) return new Config();
+		try {
+			return load(new File(file));
+		}
+		catch (IOException e) {
+			// better to play with the defaults than not at all
+			System.err.println("Could not read the settings in '" + file + "', using the defaults: " + e);
+			return new Config();
+		}
+	}
+
+	public static Config load(File file) throws IOException {
+		Properties values = new Properties();
+		try (Reader in = new FileReader(file)) {
+			values.load(in);
+		}
+		return new Config(values);
+	}
+
+	public void store(File file, String comment) throws IOException {
+		try (Writer out = new FileWriter(file)) {
+			values.store(out, comment);
+		}
+	}
+
+	public int getInt(String key, int defaultValue) {
+		String value = values.getProperty(key);
+		if (value == null) return defaultValue;
+		try {
+			return Integer.parseInt(value.trim());
+		}
+		catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Setting '" + key + "' should be a whole number, not '" + value + "'");
+		}
+	}
+
+	public double getDouble(String key, double defaultValue) {
+		String value = values.getProperty(key);
+		if (value == null) return defaultValue;
+		try {
+			return Double.parseDouble(value.trim());
+		}
+		catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Setting '" + key + "' should be a number, not '" + value + "'");
+		}
+	}
+
+	public boolean has(String key) { return values.containsKey(key); }
+
+	// the keys of all settings, in order, and the (unparsed) value of one (null if it is not set)
+	public Set<String> keys() { return new TreeSet<String>(values.stringPropertyNames()); }
+	public String get(String key) { return values.getProperty(key); }
+
+	// a copy of these settings, with 'key' set to 'value'
+	public Config with(String key, Object value) {
+		Properties copy = new Properties();
+		copy.putAll(values);
+		copy.setProperty(key, String.valueOf(value));
+		return new Config(copy);
+	}
+
+	// a copy of these settings, with every setting of 'other' added (or replaced)
+	public Config with(Config other) {
+		Properties copy = new Properties();
+		copy.putAll(values);
+		copy.putAll(other.values);
+		return new Config(copy);
+	}
+
+	// a copy of these settings, without the ones whose key starts with 'prefix' (say, 'Savague.')
+	public Config without(String prefix) {
+		Properties copy = new Properties();
+		for (String key : values.stringPropertyNames())
+			if (!key.startsWith(prefix)) copy.setProperty(key, values.getProperty(key));
+		return new Config(copy);
+	}
+
+	// 'key=value, ...' in key order
+	public String toString() {
+		StringBuilder s = new StringBuilder();
+		for (String key : keys()) {
+			if (s.length() > 0) s.append(", ");
+			s.append(key).append('=').append(values.getProperty(key));
+		}
+		return s.toString();
+	}
+}
@@ -0,0 +1,34 @@
+/*********************************************************************
+** Code written by Wells Lucas Santo
+** This code was written as part of the CS9223 course at NYU.
+** If you wish to reproduce this code in any way, please give credit.
+**********************************************************************/
+
+// Something that can play a game forward from a state: the real framework (RealForwardModel),
+// or a cheap approximation of it (GridSurrogate). Rollouts written against this can switch from
+// one to the other half way through.
+
+// Actions are numbered the way the state we started from numbers them (its getAvailableActions()).
+
+package Common;
+
+// basic imports to allow the model to work
+import core.game.StateObservation;
+// import needed for getting Types.WINNER
+import ontology.Types;
+
+public interface ForwardModel {
+
+	// start playing from 'state' (which is not changed)
+	void reset(StateObservation state);
+
+	// how many actions can be played now
+	int actionCount();
+
+	// play action number 'action'
+	void advance(int action);
+
+	boolean isGameOver();
+	double getGameScore();
+	Types.WINNER getGameWinner();
+}
@@ -0,0 +1,115 @@
+/*********************************************************************
+** Code written by Wells Lucas Santo
+** This code was written as part of the CS9223 course at NYU.
+** If you wish to reproduce this code in any way, please give credit.
+**********************************************************************/
+
+// A very cheap stand-in for the real forward model: a snapshot of the grid, in which only the
+// avatar moves.
+
+// Motivation: a real advance() runs the whole game for one tick (every sprite, every collision),
+// and that is where nearly all of the time of a rollout goes. Far down a rollout the exact state
+// does not matter that much anymore -- mostly *where the avatar can get to* does.
+
+// How it works:
+// reset() takes a snapshot of a real state: a SpatialIndex of all sprites, which cells hold a
+// static sprite (those are treated as walls), and where the avatar is. advance() moves the avatar
+// one cell up, down, left or right, unless a wall or the edge of the grid is in the way; every
+// other action leaves it where it is. Nothing else moves or changes: the NPCs stay where they
+// were, the score and the winner stay what they were in the snapshot. A step costs a few array
+// reads, so a rollout can take thousands of them in the time of one real advance().
+// To evaluate where a rollout ended, ask index() -- its distances are measured from the
+// simulated avatar (the 'setReference' of the index is kept on it).
+
+// Note: this is only an approximation. Static sprites that do not block in the real game (say,
+// a goal) block here, and nothing can kill or reward the avatar. So it should only be used for
+// the deep part of a rollout, after the real model has played the first steps.
+
+// Note: like SpatialIndex, a surrogate is meant to be reused by a single controller.
+
+package Common;
+
+// basic imports to allow the model to work
+import core.game.StateObservation;
+// import needed for getting Types.ACTIONS and Types.WINNER
+import ontology.Types;
+// import needed for dealing with locations on the grid
+import tools.Vector2d;
+// import needed for dealing with some java functionality
+import java.util.ArrayList;
+
+public class GridSurrogate implements ForwardModel {
+
+	final SpatialIndex index = new SpatialIndex();
+	int cols, rows, blockSize;
+	// wall[col * rows + row]: can the avatar not go into this cell?
+	boolean[] wall = new boolean[0];
+	// the cell of the avatar, and where inside the cell it is (so distances match the real ones)
+	int col, row;
+	double offsetX, offsetY;
+	// how each action moves the avatar
+	int[] moveX = new int[0], moveY = new int[0];
+	int actionCount;
+	// these do not change in a surrogate rollout
+	double score;
+	Types.WINNER winner;
+	boolean gameOver;
+
+	public void reset(StateObservation state) {
+		index.build(state);
+		cols = index.cols();
+		rows = index.rows();
+		blockSize = index.blockSize();
+		if (wall.length < cols * rows) wall = new boolean[cols * rows];
+		for (int x = 0; x < cols; x++)
+			for (int y = 0; y < rows; y++)
+				wall[x * rows + y] = index.countAt(Types.TYPE_STATIC, x, y) > 0;
+
+		Vector2d myPosition = state.getAvatarPosition();
+		double x = (myPosition == null) ? 0 : myPosition.x;
+		double y = (myPosition == null) ? 0 : myPosition.y;
+		col = Math.max(0, Math.min(cols - 1, (int) Math.floor(x / blockSize)));
+		row = Math.max(0, Math.min(rows - 1, (int) Math.floor(y / blockSize)));
+		offsetX = x - col * blockSize;
+		offsetY = y - row * blockSize;
+
+		ArrayList<Types.ACTIONS> actions = state.getAvailableActions();
+		actionCount = actions.size();
+		if (moveX.length < actionCount) {
+			moveX = new int[actionCount];
+			moveY = new int[actionCount];
+		}
+		for (int a = 0; a < actionCount; a++) {
+			Types.ACTIONS action = actions.get(a);
+			moveX[a] = (action == Types.ACTIONS.ACTION_LEFT) ? -1 : (action == Types.ACTIONS.ACTION_RIGHT) ? 1 : 0;
+			moveY[a] = (action == Types.ACTIONS.ACTION_UP) ? -1 : (action == Types.ACTIONS.ACTION_DOWN) ? 1 : 0;
+		}
+
+		score = state.getGameScore();
+		winner = state.getGameWinner();
+		gameOver = state.isGameOver();
+	}
+
+	public int actionCount() { return actionCount; }
+
+	public void advance(int action) {
+		if (gameOver) return;
+		int x = col + moveX[action];
+		int y = row + moveY[action];
+		if (x < 0 || x >= cols || y < 0 || y >= rows || wall[x * rows + y]) return;
+		col = x;
+		row = y;
+		index.setReference(avatarX(), avatarY());
+	}
+
+	public boolean isGameOver() { return gameOver; }
+	public double getGameScore() { return score; }
+	public Types.WINNER getGameWinner() { return winner; }
+
+	// where the simulated avatar is (in pixels, like getAvatarPosition())
+	public double avatarX() { return col * blockSize + offsetX; }
+	public double avatarY() { return row * blockSize + offsetY; }
+
+	// the sprites of the snapshot, with distances measured from the simulated avatar
+	public SpatialIndex index() { return index; }
+}
@@ -0,0 +1,15 @@
+/*********************************************************************
+** Code written by Wells Lucas Santo
+** This code was written as part of the CS9223 course at NYU.
+** If you wish to reproduce this code in any way, please give credit.
+**********************************************************************/
+
+// Implemented by the controllers that report how much work they did in their last act().
+
+package Common;
+
+public interface Instrumented {
+
+	// the statistics of the last act() -- the same object is reused every tick
+	public TickStats tickStats();
+}
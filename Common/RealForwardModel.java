@@ -0,0 +1,31 @@
+/*********************************************************************
+** Code written by Wells Lucas Santo
+** This code was written as part of the CS9223 course at NYU.
+** If you wish to reproduce this code in any way, please give credit.
+**********************************************************************/
+
+// The real forward model: a copy of the state, played forward with the framework's advance().
+
+package Common;
+
+// basic imports to allow the model to work
+import core.game.StateObservation;
+// import needed for getting Types.WINNER
+import ontology.Types;
+
+public class RealForwardModel implements ForwardModel {
+
+	StateObservation state;
+
+	public void reset(StateObservation from) { state = from.copy(); }
+
+	// the state we have played forward to
+	public StateObservation state() { return state; }
+
+	public int actionCount() { return state.getAvailableActions().size(); }
+	public void advance(int action) { state.advance(state.getAvailableActions().get(action)); }
+
+	public boolean isGameOver() { return state.isGameOver(); }
+	public double getGameScore() { return state.getGameScore(); }
+	public Types.WINNER getGameWinner() { return state.getGameWinner(); }
+}
@@ -0,0 +1,80 @@
+/*********************************************************************
+** Code written by Wells Lucas Santo
+** This code was written as part of the CS9223 course at NYU.
+** If you wish to reproduce this code in any way, please give credit.
+**********************************************************************/
+
+// Where the controllers get their random numbers from, so that a game can be played again
+// with exactly the same random choices.
+
+// How it works:
+// Every thread can be given its own seed (the tournament runner does this for every game,
+// from the game's seed). Each Random a controller asks for is then seeded from that thread's
+// stream -- a SplittableRandom, which gives independent, well-mixed seeds. So the controllers of
+// one game always get the same Random numbers, however many games run next to it on other threads.
+// A thread without a seed of its own starts from -Dgvgai.seed, if it is set, and otherwise
+// we get an unseeded Random, just like before.
+// When a controller searches on another thread (the Watchdog's, or a Portfolio member's), it
+// splits a stream off its own thread's when it is created, and hands it to the worker thread for
+// every search (use / unseed) -- so anything random on that thread is seeded from the game too.
+
+// Usage:
+//    Random rng = Seeds.newRandom();    // once, when the controller is created -- not per call
+
+package Common;
+
+// import needed for dealing with some java functionality
+import java.util.Random;
+import java.util.SplittableRandom;
+
+public class Seeds {
+
+	// the seed stream of each thread (null if it has none)
+	static final ThreadLocal<SplittableRandom> STREAM = new ThreadLocal<SplittableRandom>();
+
+	// from now on, the Randoms created on this thread come from 'seed'
+	public static void seed(long seed) { STREAM.set(new SplittableRandom(seed)); }
+
+	// go back to the -Dgvgai.seed (or unseeded) behaviour on this thread
+	public static void unseed() { STREAM.remove(); }
+
+	// from now on, the Randoms created on this thread come from 'stream' (from split() on another
+	// thread) -- or, if it is null, behave like unseed()
+	public static void use(SplittableRandom stream) {
+		if (stream == null) STREAM.remove();
+		else STREAM.set(stream);
+	}
+
+	// is this thread handing out seeded Randoms?
+	public static boolean seeded() { return stream() != null; }
+
+	// a new Random for a controller -- seeded from this thread's stream, if it has one
+	public static Random newRandom() {
+		SplittableRandom stream = stream();
+		return (stream == null) ? new Random() : new Random(stream.nextLong());
+	}
+
+	// a stream of its own, for handing to another thread (null if this thread has no stream either)
+	public static SplittableRandom split() {
+		SplittableRandom stream = stream();
+		return (stream == null) ? null : stream.split();
+	}
+
+	// one seed out of several numbers (say a game's seed and its level), well mixed
+	public static long derive(long... parts) {
+		long seed = 0;
+		for (long p : parts) seed = StateCache.mix(seed ^ p);
+		return seed;
+	}
+
+	static SplittableRandom stream() {
+		SplittableRandom stream = STREAM.get();
+		if (stream == null) {
+			Long master = Long.getLong("gvgai.seed");
+			if (master == null) return null;
+			seed(master);
+			stream = STREAM.get();
+		}
+		return stream;
+	}
+}
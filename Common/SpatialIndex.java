@@ -0,0 +1,276 @@
+/*********************************************************************
+** Code written by Wells Lucas Santo
+** This code was written as part of the CS9223 course at NYU.
+** If you wish to reproduce this code in any way, please give credit.
+**********************************************************************/
+
+// A compact spatial index over the observation grid of a state, used by the heuristics of
+// all three controllers to find the closest sprite of each category.
+
+// Motivation: every heuristic in these controllers only ever looks at the *closest* sprite of
+// a category and at a few counts. The get*Positions(myPosition) calls build a fresh array of
+// lists and sort every one of them by distance each time they are called, which is a lot of
+// work to throw away after reading element 0.
+
+// How it works:
+// The index is built once per state with a single pass over the observation grid. Sprites are
+// bucketed by the grid cell they are in (a counting sort, so no comparisons are needed), and we
+// keep counts per category and per sprite type. To find the closest sprite we walk outwards from
+// the avatar's cell one 'ring' of cells at a time, and stop as soon as no cell further out can
+// hold anything closer than what we already found. Nothing is sorted and nothing is allocated
+// once the index has grown to the size of the game.
+
+// Note: sprite types in a category are numbered in ascending 'itype' order, which is the same
+// order the get*Positions() arrays use -- so slot 0 here is the same as index [0] there.
+
+// Note: an index is meant to be reused by a single controller (build, query, build, query...),
+// it is not safe to share one between threads.
+
+package Common;
+
+// basic imports to allow the index to work
+import core.game.Observation;
+import core.game.StateObservation;
+// import needed for dealing with locations on the grid
+import tools.Vector2d;
+// import needed for dealing with some java functionality
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class SpatialIndex {
+
+	// sprite categories, as numbered by Types.TYPE_*
+	// (avatar, resource, portal, npc, static, from avatar, movable)
+	public static final int NUM_CATEGORIES = 7;
+
+	// size of the grid we were built from
+	int cols, rows, blockSize;
+	// the point that all distances are measured from (normally the avatar), and its cell
+	double refX, refY;
+	int refCol, refRow;
+
+	// per category: how many sprites there are
+	final int[] count = new int[NUM_CATEGORIES];
+	// per category: the sprites of cell 'c' are at [cellStart[c], cellStart[c+1]) in the arrays below
+	final int[][] cellStart = new int[NUM_CATEGORIES][];
+	final int[][] cellFill = new int[NUM_CATEGORIES][];
+	final double[][] spriteX = new double[NUM_CATEGORIES][];
+	final double[][] spriteY = new double[NUM_CATEGORIES][];
+	final int[][] spriteSlot = new int[NUM_CATEGORIES][];
+	// per category: the itype of each slot (ascending), and how many sprites are in that slot
+	final int[][] slotType = new int[NUM_CATEGORIES][];
+	final int[][] slotCount = new int[NUM_CATEGORIES][];
+	final int[] slotsUsed = new int[NUM_CATEGORIES];
+
+	// scratch space for the single nearest queries
+	final double[] nearestOne = new double[1];
+
+	public SpatialIndex() {
+		for (int c = 0; c < NUM_CATEGORIES; c++) {
+			cellStart[c] = new int[1];
+			cellFill[c] = new int[0];
+			spriteX[c] = new double[16];
+			spriteY[c] = new double[16];
+			spriteSlot[c] = new int[16];
+			slotType[c] = new int[4];
+			slotCount[c] = new int[4];
+		}
+	}
+
+	// (re)build the index from the observation grid of 'someState', measuring distances from the avatar
+	public SpatialIndex build(StateObservation someState) {
+		ArrayList<Observation>[][] grid = someState.getObservationGrid();
+		cols = (grid == null) ? 0 : grid.length;
+		rows = (cols == 0) ? 0 : grid[0].length;
+		blockSize = Math.max(1, someState.getBlockSize());
+		int cellCount = cols * rows;
+
+		for (int c = 0; c < NUM_CATEGORIES; c++) {
+			if (cellStart[c].length < cellCount + 1) {
+				cellStart[c] = new int[cellCount + 1];
+				cellFill[c] = new int[cellCount];
+			}
+			for (int i = 0; i <= cellCount; i++) cellStart[c][i] = 0;
+			count[c] = 0;
+			slotsUsed[c] = 0;
+		}
+
+		// first pass: count the sprites of each category in each cell, and note down every type we see
+		for (int x = 0; x < cols; x++) {
+			for (int y = 0; y < rows; y++) {
+				ArrayList<Observation> cell = grid[x][y];
+				if (cell == null) continue;
+				int cellNo = x * rows + y;
+				for (int i = 0; i < cell.size(); i++) {
+					Observation obs = cell.get(i);
+					int cat = obs.category;
+					if (cat < 0 || cat >= NUM_CATEGORIES) continue;
+					cellStart[cat][cellNo + 1]++;
+					count[cat]++;
+					addType(cat, obs.itype);
+				}
+			}
+		}
+
+		// turn the per-cell counts into the start of each cell's bucket
+		for (int c = 0; c < NUM_CATEGORIES; c++) {
+			int[] start = cellStart[c];
+			for (int i = 0; i < cellCount; i++) start[i + 1] += start[i];
+			System.arraycopy(start, 0, cellFill[c], 0, cellCount);
+			if (spriteX[c].length < count[c]) {
+				int size = Math.max(count[c], spriteX[c].length * 2);
+				spriteX[c] = new double[size];
+				spriteY[c] = new double[size];
+				spriteSlot[c] = new int[size];
+			}
+		}
+
+		// second pass: drop every sprite into its cell's bucket
+		for (int x = 0; x < cols; x++) {
+			for (int y = 0; y < rows; y++) {
+				ArrayList<Observation> cell = grid[x][y];
+				if (cell == null) continue;
+				int cellNo = x * rows + y;
+				for (int i = 0; i < cell.size(); i++) {
+					Observation obs = cell.get(i);
+					int cat = obs.category;
+					if (cat < 0 || cat >= NUM_CATEGORIES) continue;
+					int at = cellFill[cat][cellNo]++;
+					int slot = slotOf(cat, obs.itype);
+					spriteX[cat][at] = obs.position.x;
+					spriteY[cat][at] = obs.position.y;
+					spriteSlot[cat][at] = slot;
+					slotCount[cat][slot]++;
+				}
+			}
+		}
+
+		Vector2d myPosition = someState.getAvatarPosition();
+		if (myPosition != null) setReference(myPosition.x, myPosition.y);
+		else setReference(0, 0);
+		return this;
+	}
+
+	// measure distances from a different point (for example, where the avatar *would* be)
+	public void setReference(double x, double y) {
+		refX = x;
+		refY = y;
+		refCol = clamp((int) Math.floor(x / blockSize), cols);
+		refRow = clamp((int) Math.floor(y / blockSize), rows);
+	}
+
+	// total number of sprites of a category
+	public int count(int category) { return count[category]; }
+
+	// size of the grid (in cells), and of one cell (in pixels)
+	public int cols() { return cols; }
+	public int rows() { return rows; }
+	public int blockSize() { return blockSize; }
+
+	// number of sprites of a category in the cell at (col, row) -- 0 outside of the grid
+	public int countAt(int category, int col, int row) {
+		if (col < 0 || col >= cols || row < 0 || row >= rows) return 0;
+		int cellNo = col * rows + row;
+		return cellStart[category][cellNo + 1] - cellStart[category][cellNo];
+	}
+
+	// number of different sprite types of a category
+	public int types(int category) { return slotsUsed[category]; }
+
+	// number of sprites of one type of a category
+	public int count(int category, int slot) { return slotCount[category][slot]; }
+
+	// the itype of one type slot of a category
+	public int type(int category, int slot) { return slotType[category][slot]; }
+
+	// distance to the closest sprite of a category, or -1 if there is none
+	public double nearestDistance(int category) {
+		return (kNearest(category, -1, 1, nearestOne) == 0) ? -1 : nearestOne[0];
+	}
+
+	// distance to the closest sprite of one type of a category, or -1 if there is none
+	public double nearestDistance(int category, int slot) {
+		return (kNearest(category, slot, 1, nearestOne) == 0) ? -1 : nearestOne[0];
+	}
+
+	// fill 'out' with the distances to the (up to) 'k' closest sprites of a category, closest first
+	// returns how many were found -- 'out' must have room for 'k' values
+	public int kNearest(int category, int k, double[] out) { return kNearest(category, -1, k, out); }
+
+	// same as above, but only for sprites in type slot 'slot' (or any type if 'slot' is negative)
+	public int kNearest(int category, int slot, int k, double[] out) {
+		if (k <= 0 || count[category] == 0) return 0;
+		if (slot >= 0 && (slot >= slotsUsed[category] || slotCount[category][slot] == 0)) return 0;
+
+		int found = 0;
+		int maxRing = Math.max(cols, rows);
+		for (int r = 0; r <= maxRing; r++) {
+			int x0 = refCol - r, x1 = refCol + r;
+			int y0 = refRow - r, y1 = refRow + r;
+			for (int x = x0; x <= x1; x++) {
+				if (x < 0 || x >= cols) continue;
+				// on the left and right edge of the ring we look at every cell,
+				// in between we only need the top and bottom cell
+				int step = (x == x0 || x == x1) ? 1 : (y1 - y0);
+				for (int y = y0; y <= y1; y += step) {
+					if (y >= 0 && y < rows)
+						found = scanCell(category, slot, x * rows + y, k, out, found);
+				}
+			}
+			// nothing in the next ring can be closer than this (with a cell of slack, since
+			// a moving sprite is not always exactly inside the cell it is listed in)
+			if (found == k && out[k - 1] <= (r - 1) * (double) blockSize) break;
+		}
+		return found;
+	}
+
+	// insert the sprites of one cell into the sorted list of the 'k' best found so far
+	int scanCell(int category, int slot, int cellNo, int k, double[] out, int found) {
+		int end = cellStart[category][cellNo + 1];
+		for (int i = cellStart[category][cellNo]; i < end; i++) {
+			if (slot >= 0 && spriteSlot[category][i] != slot) continue;
+			double dx = spriteX[category][i] - refX;
+			double dy = spriteY[category][i] - refY;
+			double dist = Math.sqrt(dx * dx + dy * dy);
+			if (found == k && dist >= out[k - 1]) continue;
+			int j = (found < k) ? found++ : k - 1;
+			while (j > 0 && out[j - 1] > dist) {
+				out[j] = out[j - 1];
+				j--;
+			}
+			out[j] = dist;
+		}
+		return found;
+	}
+
+	// remember that sprites of 'itype' exist in this category, keeping the slots in ascending itype order
+	void addType(int category, int itype) {
+		int used = slotsUsed[category];
+		int[] types = slotType[category];
+		int at = 0;
+		while (at < used && types[at] < itype) at++;
+		if (at < used && types[at] == itype) return;
+		if (used == types.length) {
+			slotType[category] = types = Arrays.copyOf(types, used * 2);
+			slotCount[category] = Arrays.copyOf(slotCount[category], used * 2);
+		}
+		System.arraycopy(types, at, types, at + 1, used - at);
+		types[at] = itype;
+		slotsUsed[category] = used + 1;
+		slotCount[category][used] = 0;
+	}
+
+	// which slot a (registered) itype is in
+	int slotOf(int category, int itype) {
+		int[] types = slotType[category];
+		int slot = 0;
+		while (types[slot] != itype) slot++;
+		return slot;
+	}
+
+	static int clamp(int value, int size) {
+		if (value < 0) return 0;
+		if (value >= size) return Math.max(0, size - 1);
+		return value;
+	}
+}
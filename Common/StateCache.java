@@ -0,0 +1,116 @@
+/*********************************************************************
+** Code written by Wells Lucas Santo
+** This code was written as part of the CS9223 course at NYU.
+** If you wish to reproduce this code in any way, please give credit.
+**********************************************************************/
+
+// A small, bounded cache for the heuristic evaluators of all three controllers.
+
+// How it works:
+// Every state that we evaluate gets a cheap 64-bit 'fingerprint' built from the game tick,
+// the score, the winner, the avatar position, and the (id, type, position) of every sprite on
+// the observation grid. None of that requires the sorted get*Positions() lists, so computing the
+// fingerprint is much cheaper than re-extracting the heuristic features of a state.
+// The fingerprint is then used as a key into an LRU map that holds whatever the evaluator
+// wants to remember about that state (extracted features, a heuristic value, ...).
+// Once the cache is full, the least recently used state is thrown away.
+
+// Note: The fingerprint has to cover everything the cached values depend on. The evaluators
+// remember exact distances in pixels, so it mixes in the pixel position of every sprite, not
+// just its cell -- a slow NPC (or one under continuous physics) can move within its cell, and
+// that state must not get the distances of the one before. Apart from that, two different states
+// can only share a fingerprint by a 64-bit hash collision, which we do not guard against.
+
+package Common;
+
+// basic imports to allow the cache to work
+import core.game.Observation;
+import core.game.StateObservation;
+// import needed for getting Types.WINNER
+import ontology.Types;
+// import needed for dealing with locations on the grid
+import tools.Vector2d;
+// import needed for dealing with some java functionality
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class StateCache<V> {
+
+	final int capacity;
+	final LinkedHashMap<Long, V> entries;
+	long hits = 0;
+	long misses = 0;
+
+	// create a cache that remembers at most 'capacity' states
+	public StateCache(final int capacity) {
+		this.capacity = capacity;
+		// access-ordered, so that the eldest entry is always the least recently used one
+		entries = new LinkedHashMap<Long, V>(capacity * 4 / 3 + 1, 0.75f, true) {
+			protected boolean removeEldestEntry(Map.Entry<Long, V> eldest) { return size() > capacity; }
+		};
+	}
+
+	// look up the value stored for this fingerprint -- null if we have not seen it (or it was evicted)
+	public V get(long fingerprint) {
+		V value = entries.get(fingerprint);
+		if (value == null) misses++;
+		else hits++;
+		return value;
+	}
+
+	// remember the value for this fingerprint, possibly evicting the least recently used state
+	public void put(long fingerprint, V value) { entries.put(fingerprint, value); }
+
+	// forget everything (the hit/miss counters are kept)
+	public void clear() { entries.clear(); }
+
+	public int size() { return entries.size(); }
+	public int capacity() { return capacity; }
+	public long hits() { return hits; }
+	public long misses() { return misses; }
+
+	// fraction of lookups that were answered by the cache
+	public double hitRate() {
+		long total = hits + misses;
+		return (total == 0) ? 0.0 : (double) hits / total;
+	}
+
+	// build a cheap fingerprint of a state -- this walks the observation grid once,
+	// but does not allocate or sort anything
+	public static long fingerprint(StateObservation someState) {
+		long h = mix(someState.getGameTick());
+		h = mix(h ^ Double.doubleToLongBits(someState.getGameScore()));
+		Types.WINNER winner = someState.getGameWinner();
+		h = mix(h ^ ((winner == null) ? -1 : winner.ordinal()));
+		Vector2d myPosition = someState.getAvatarPosition();
+		if (myPosition != null) {
+			h = mix(h ^ Double.doubleToLongBits(myPosition.x));
+			h = mix(h ^ Double.doubleToLongBits(myPosition.y));
+		}
+		ArrayList<Observation>[][] grid = someState.getObservationGrid();
+		if (grid != null) {
+			for (int x = 0; x < grid.length; x++) {
+				for (int y = 0; y < grid[x].length; y++) {
+					ArrayList<Observation> cell = grid[x][y];
+					if (cell == null) continue;
+					for (int i = 0; i < cell.size(); i++) {
+						Observation obs = cell.get(i);
+						// which sprite it is, what type it is, and exactly where it is
+						h = mix(h ^ (((long) obs.itype << 32) | (obs.obsID & 0xffffffffL)));
+						h = mix(h ^ Double.doubleToLongBits(obs.position.x));
+						h = mix(h ^ Double.doubleToLongBits(obs.position.y));
+					}
+				}
+			}
+		}
+		return h;
+	}
+
+	// the 'finalizer' of SplitMix64 -- spreads the bits of 'z' over the whole long
+	static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -0,0 +1,87 @@
+/*********************************************************************
+** Code written by Wells Lucas Santo
+** This code was written as part of the CS9223 course at NYU.
+** If you wish to reproduce this code in any way, please give credit.
+**********************************************************************/
+
+// How much work a controller did in its last act() -- filled in at the end of every act(),
+// so that whoever runs the game (a tournament, a benchmark) can look at it afterwards,
+// and sent to Java Flight Recorder when a recording is running.
+
+package Common;
+
+// import needed for dealing with some java functionality
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TickStats {
+
+	// every controller instance (that is, every game) gets its own id
+	static final AtomicLong NEXT_GAME_ID = new AtomicLong();
+
+	// the first ActEvent of the JVM sets up the flight recorder's event classes, which takes a few
+	// hundred ms -- do that here, while the controller is being built (and has a second to spare),
+	// instead of in the first act() (which only has 40 ms)
+	static {
+		ActEvent event = new ActEvent();
+		event.begin();
+		event.shouldCommit();
+	}
+
+	public final String agent;
+	public final long gameId = NEXT_GAME_ID.incrementAndGet();
+	public int tick;
+
+	// iterations of the search (MCTS iterations, or generations for the evolutionary controllers)
+	public long iterations;
+	// forward model calls
+	public long copies;
+	public long advances;
+	// steps played on a surrogate forward model instead (see GridSurrogate)
+	public long surrogateSteps;
+	// nodes in the tree, or the size of the population
+	public long treeSize;
+	// best and average score (reward, fitness...) the search found
+	public double bestScore;
+	public double meanScore;
+	// how sure the controller is of the action it picked, from 0 (a coin flip) to 1 (certain):
+	// the visit share of the best child (MCTS), the fitness margin of the best individual over the
+	// best one that starts differently (evolution), or the output margin of the best net
+	public double confidence;
+	// how much time was left (before the budget's reserve) when we returned
+	public double remainingMillis;
+	// did we go past the real deadline?
+	public boolean overrun;
+	// how many times (this game, so far) the Watchdog had to answer before the search was done
+	public long watchdogOverruns;
+
+	public TickStats(String agent) { this.agent = agent; }
+
+	// take the counts of this tick from the time budget, which saw every piece of work
+	public void record(TimeBudget budget) {
+		iterations = budget.tickCount(TimeBudget.ITERATION);
+		copies = budget.tickCount(TimeBudget.COPY);
+		advances = budget.tickCount(TimeBudget.ADVANCE);
+		remainingMillis = budget.remainingMillis();
+		overrun = budget.overran();
+	}
+
+	// send this tick to Java Flight Recorder -- does nothing (cheaply) if nobody is recording
+	public void emit(ActEvent event) {
+		if (!event.shouldCommit()) return;
+		event.agent = agent;
+		event.gameId = gameId;
+		event.tick = tick;
+		event.iterations = iterations;
+		event.copies = copies;
+		event.advances = advances;
+		event.surrogateSteps = surrogateSteps;
+		event.treeSize = treeSize;
+		event.bestScore = bestScore;
+		event.meanScore = meanScore;
+		event.confidence = confidence;
+		event.remainingMillis = remainingMillis;
+		event.overrun = overrun;
+		event.watchdogOverruns = watchdogOverruns;
+		event.commit();
+	}
+}
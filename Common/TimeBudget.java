@@ -0,0 +1,228 @@
+/*********************************************************************
+** Code written by Wells Lucas Santo
+** This code was written as part of the CS9223 course at NYU.
+** If you wish to reproduce this code in any way, please give credit.
+**********************************************************************/
+
+// A time budget shared by all three controllers, that decides whether the next piece of work
+// still fits before the deadline of this tick.
+
+// Motivation: the controllers used to keep a hard-coded safety margin (1, 3 or 5 ms) and check
+// the ElapsedCpuTimer after almost every step. In a game where advance() is cheap this throws
+// away a good part of the 40 ms, and in a game where advance() is slow a 1 ms margin is not
+// always enough.
+
+// How it works:
+// For every kind of work (a copy(), an advance(), one whole iteration of the search) we keep
+// a running average (EWMA) of how long it takes *in this game*, and a running variance of it.
+// From those two we plan with a high quantile: by Cantelli's inequality, a piece of work takes
+// longer than 'mean + k * deviation' at most 1 / (1 + k*k) of the time, whatever the
+// distribution looks like -- so we pick k to make that 'overrunProbability'. No samples have to
+// be stored, and both numbers follow the game quickly when it gets faster or slower.
+// The ElapsedCpuTimer is only read once, at the start of the tick, to find the deadline --
+// after that we only look at System.nanoTime(), and not on every copy() and advance() either:
+// a playout or a generation asks once how many advances still fit (howMany), and only every
+// SAMPLE_EVERY-th copy or advance is timed (begin/end) -- the counts of the tick include them all.
+// Work 'fits' if, even in the slow tail, it would finish before the deadline minus a small
+// reserve for handing the action back to the framework. So we use nearly all of the tick, and
+// the chance of running over is bounded by the quantile we plan against.
+
+// Deterministic mode: with -Dgvgai.iterations=N, the clock is not looked at at all. Every tick
+// gets exactly N iterations (and every copy and advance inside of them fits). Together with
+// fixed seeds (see Seeds) this makes the controllers play a game exactly the same way every
+// time -- however fast or busy the machine is -- which is what replays and before/after
+// comparisons need. The ticks will usually not fit in 40 ms anymore, so this is not for real games.
+
+// Usage:
+//    budget.startTick(origTime);
+//    while (budget.fits(TimeBudget.ITERATION)) {
+//        long t = budget.start();
+//        for (int steps = budget.howMany(TimeBudget.ADVANCE, depth); steps > 0; steps--) {
+//            long a = budget.begin(TimeBudget.ADVANCE);
+//            ... one advance ...
+//            budget.end(TimeBudget.ADVANCE, a);
+//        }
+//        budget.record(TimeBudget.ITERATION, t);
+//    }
+
+package Common;
+
+// basic imports to allow the budget to work
+import tools.ElapsedCpuTimer;
+
+public class TimeBudget {
+
+	// the kinds of work we keep estimates for
+	public static final int COPY = 0;
+	public static final int ADVANCE = 1;
+	public static final int ITERATION = 2;
+	static final int KINDS = 3;
+
+	// what we assume a piece of work costs before we have measured it (nanoseconds)
+	static final double[] PRIOR_NANOS = { 100000, 200000, 2000000 };
+	// how quickly the average and the variance forget old measurements
+	static final double ALPHA = 0.1;
+	// copies and advances: time every one of the first WARMUP of the game, then every SAMPLE_EVERY-th
+	static final long WARMUP = 16;
+	static final long SAMPLE_EVERY = 8;
+
+	// the chance we accept that one piece of work takes longer than we planned for
+	final double overrunProbability;
+	// how many deviations above the average we plan for (from Cantelli's inequality)
+	final double deviations;
+	// time we always keep for returning the action to the framework
+	final long reserveNanos;
+	// if above 0, the iterations every tick gets instead of looking at the time
+	final long fixedIterations;
+
+	final double[] mean = new double[KINDS];
+	final double[] variance = new double[KINDS];
+	final double[] tail = new double[KINDS];
+	final long[] samples = new long[KINDS];
+	// how many pieces of work of each kind were done this tick
+	final long[] tickCount = new long[KINDS];
+
+	// System.nanoTime() at which we have to stop working this tick
+	long deadline;
+	// set (from another thread) by the Watchdog, when it has stopped waiting for this tick's search
+	volatile boolean stopped = false;
+
+	public TimeBudget() { this(0.05, 2.0, fixedIterations()); }
+
+	public TimeBudget(double overrunProbability, double reserveMillis) { this(overrunProbability, reserveMillis, 0); }
+
+	public TimeBudget(double overrunProbability, double reserveMillis, long fixedIterations) {
+		this.overrunProbability = overrunProbability;
+		this.fixedIterations = fixedIterations;
+		this.deviations = Math.sqrt(1 / overrunProbability - 1);
+		this.reserveNanos = (long) (reserveMillis * 1000000);
+		for (int k = 0; k < KINDS; k++) {
+			mean[k] = PRIOR_NANOS[k];
+			tail[k] = PRIOR_NANOS[k];
+		}
+	}
+
+	// find the deadline for this tick -- this is the only time we read the ElapsedCpuTimer
+	public void startTick(ElapsedCpuTimer timer) {
+		deadline = System.nanoTime() + timer.remainingTimeMillis() * 1000000 - reserveNanos;
+		// if nothing of a kind fitted last tick, we could not learn anything new about it -- so one
+		// slow measurement (say, while the JIT was still warming up) would keep it from ever fitting
+		// again. Halve the estimate, so it gets another chance soon. But only the estimate that kept
+		// the work out: copies and advances are only tried inside of an iteration, so when no
+		// iteration fitted, theirs are left alone (halving them tick after tick would make the next
+		// iteration commit to far more of them than fit).
+		for (int k = 0; k < KINDS; k++) {
+			boolean tried = k == ITERATION || tickCount[ITERATION] > 0;
+			if (tried && tickCount[k] == 0 && samples[k] > 0) halve(k);
+		}
+		for (int k = 0; k < KINDS; k++) tickCount[k] = 0;
+	}
+
+	// plan for half of what a piece of work of this kind used to cost
+	void halve(int kind) {
+		mean[kind] *= 0.5;
+		variance[kind] *= 0.25;
+		tail[kind] *= 0.5;
+	}
+
+	// start timing a piece of work
+	public long start() { return System.nanoTime(); }
+
+	// the piece of work started at 'startNanos' is done -- count it, and learn from how long it took
+	// returns the current time, so it can be used as the start of the next piece of work
+	public long record(int kind, long startNanos) {
+		long now = System.nanoTime();
+		tickCount[kind]++;
+		observe(kind, now - startNanos);
+		return now;
+	}
+
+	// start a (cheap, frequent) piece of work, like a copy or an advance -- it is always counted, but
+	// only timed now and then: returns the start time to hand to end(), or 0 if this one is not timed
+	public long begin(int kind) {
+		long n = ++tickCount[kind];
+		if (fixedIterations > 0) return 0;
+		return (samples[kind] < WARMUP || n % SAMPLE_EVERY == 0) ? System.nanoTime() : 0;
+	}
+
+	// the piece of work that begin() returned 'startNanos' for is done
+	public void end(int kind, long startNanos) {
+		if (startNanos != 0) observe(kind, System.nanoTime() - startNanos);
+	}
+
+	// learn from one measurement of a piece of work
+	public void observe(int kind, long nanos) {
+		if (samples[kind] == 0) {
+			// forget about the prior as soon as we have a real measurement
+			// (and until we know better, assume it varies by half of itself)
+			mean[kind] = nanos;
+			variance[kind] = 0.25 * nanos * nanos;
+		}
+		else {
+			double diff = nanos - mean[kind];
+			mean[kind] += ALPHA * diff;
+			variance[kind] = (1 - ALPHA) * (variance[kind] + ALPHA * diff * diff);
+		}
+		tail[kind] = mean[kind] + deviations * Math.sqrt(variance[kind]);
+		samples[kind]++;
+	}
+
+	// is there still time for one more piece of work of this kind?
+	public boolean fits(int kind) { return fits(kind, 1); }
+
+	// is there still time for 'units' more pieces of work of this kind?
+	public boolean fits(int kind, int units) {
+		if (stopped) return false;
+		if (fixedIterations > 0) return kind != ITERATION || tickCount[ITERATION] + units <= fixedIterations;
+		return System.nanoTime() + estimateNanos(kind, units) <= deadline;
+	}
+
+	// how many (up to 'wanted') more pieces of work of this kind fit -- one look at the clock, so a
+	// playout can decide how deep it goes before it starts, instead of asking before every step
+	public int howMany(int kind, int wanted) {
+		if (stopped || wanted <= 0) return 0;
+		if (fixedIterations > 0) return (kind != ITERATION) ? wanted : (int) Math.max(0, Math.min(wanted, fixedIterations - tickCount[ITERATION]));
+		double left = deadline - System.nanoTime();
+		if (left <= 0) return 0;
+		// we have not measured this kind yet (the estimate is only a guess) -- try one first
+		if (samples[kind] == 0) return fits(kind) ? 1 : 0;
+		// the largest n with n * mean + k * sqrt(n) * deviation <= left (a quadratic in sqrt(n))
+		double m = Math.max(1, mean[kind]);
+		double kd = deviations * Math.sqrt(variance[kind]);
+		double root = (-kd + Math.sqrt(kd * kd + 4 * m * left)) / (2 * m);
+		int n = (int) Math.min(wanted, Math.floor(root * root));
+		// (rounding can put n one too high)
+		while (n > 0 && estimateNanos(kind, n) > left) n--;
+		return n;
+	}
+
+	// the iterations per tick asked for with -Dgvgai.iterations (0 if we go by the time)
+	public static long fixedIterations() { return Long.getLong("gvgai.iterations", 0); }
+	public boolean isFixed() { return fixedIterations > 0; }
+
+	// nothing fits anymore, until resume() -- so the search wraps up at its next check
+	public void stop() { stopped = true; }
+	public void resume() { stopped = false; }
+	public boolean isStopped() { return stopped; }
+
+	// how long we plan for one piece of work of this kind (the slow tail, not the average)
+	public double estimateNanos(int kind) { return Math.max(mean[kind], tail[kind]); }
+
+	// how long we plan for 'units' pieces of work of this kind: their deviations partly cancel out,
+	// so the tail of the sum grows with sqrt(units), not with units
+	public double estimateNanos(int kind, int units) {
+		if (units <= 1) return (units == 1) ? estimateNanos(kind) : 0;
+		return units * mean[kind] + deviations * Math.sqrt(units * variance[kind]);
+	}
+
+	public double meanMillis(int kind) { return mean[kind] / 1000000; }
+	public double tailMillis(int kind) { return tail[kind] / 1000000; }
+	public long samples(int kind) { return samples[kind]; }
+	public long tickCount(int kind) { return tickCount[kind]; }
+
+	// time left before we have to stop working (this does not include the reserve)
+	public double remainingMillis() { return (deadline - System.nanoTime()) / 1000000.0; }
+
+	// have we gone past the real deadline of this tick (the reserve included)?
+	public boolean overran() { return System.nanoTime() > deadline + reserveNanos; }
+}
@@ -0,0 +1,148 @@
+/*********************************************************************
+** Code written by Wells Lucas Santo
+** This code was written as part of the CS9223 course at NYU.
+** If you wish to reproduce this code in any way, please give credit.
+**********************************************************************/
+
+// A deadline watchdog, that makes sure a controller always returns an action in time -- even
+// when a single advance() (or copy()) call takes longer than the whole time we have left.
+
+// Motivation: the controllers can only check the time *between* calls to the forward model.
+// If one advance() is slow, we find out after the deadline has already passed, and the framework
+// will not accept the move.
+
+// How it works:
+// When the watchdog is on (run with -Dgvgai.watchdog=true), the search runs on a worker thread,
+// and act() waits for it with a hard timeout just before the deadline. While it searches, the
+// controller keeps 'publishing' the best action it has found so far (the best child of the root,
+// the first move of the best ancestor, the action of the best net...). If the timeout fires, we
+// return that action, count an overrun, and tell the search to stop at its next time check by
+// stopping its TimeBudget. If the search is *still* stuck when the next tick starts, we do not
+// start another one next to it; we just return the fallback action again.
+// When the watchdog is off, the search simply runs on the caller's thread, like it always did.
+// The worker threads come from one pool shared by every watchdog, so controllers need no
+// teardown at the end of a game: a thread only lives while some search needs it (and a minute
+// after), however many controllers a tournament creates.
+
+// Note: the search reads the ElapsedCpuTimer from the worker thread, so this assumes a wall-clock
+// timer (the framework's default), not a per-thread CPU timer.
+
+package Common;
+
+// basic imports to allow the watchdog to work
+import tools.ElapsedCpuTimer;
+// import needed for getting Types.ACTIONS
+import ontology.Types;
+// import needed for dealing with some java functionality
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+public class Watchdog {
+
+	// the action we return if the search has not published anything yet
+	public static final Types.ACTIONS FALLBACK = Types.ACTIONS.ACTION_NIL;
+
+	// is the watchdog switched on for this run?
+	public static boolean enabled() { return Boolean.getBoolean("gvgai.watchdog"); }
+
+	// the threads the searches run on, shared by all watchdogs (idle threads go away after a minute)
+	static final AtomicInteger THREADS = new AtomicInteger();
+	static final ExecutorService WORKERS = Executors.newCachedThreadPool(r -> {
+		Thread t = new Thread(r, "watchdog-search-" + THREADS.incrementAndGet());
+		t.setDaemon(true);
+		return t;
+	});
+
+	// how long before the deadline we stop waiting for the search
+	final long marginNanos;
+	final TimeBudget budget;
+	final boolean on;
+	// the name the worker thread has while it runs our search (for profilers and thread dumps)
+	final String threadName;
+	// the seed stream the worker thread has while it runs our search (see Seeds)
+	final SplittableRandom seeds;
+
+	// the best action the search has found so far this tick
+	volatile Types.ACTIONS bestSoFar = FALLBACK;
+	Future<Types.ACTIONS> running;
+
+	// ticks where we had to return before the search finished
+	volatile long overruns = 0;
+	// ticks where the previous search was still stuck, so we did not search at all
+	long skipped = 0;
+
+	// a watchdog for the controller 'name', that stops its search through 'budget'
+	// it is switched on or off by -Dgvgai.watchdog
+	public Watchdog(String name, TimeBudget budget) { this(name, budget, enabled(), 1.0); }
+
+	public Watchdog(String name, TimeBudget budget, boolean on, double marginMillis) {
+		this.budget = budget;
+		this.marginNanos = (long) (marginMillis * 1000000);
+		this.on = on;
+		this.threadName = name + "-search";
+		// (split even when we are off, so switching the watchdog on does not change any other Random)
+		this.seeds = Seeds.split();
+	}
+
+	// called by the search whenever it has found a (new) best action
+	public void publish(Types.ACTIONS action) { bestSoFar = action; }
+
+	// run one tick's search, and return its action -- or the best one it published so far,
+	// if it is not done by the deadline
+	public Types.ACTIONS act(Supplier<Types.ACTIONS> search, ElapsedCpuTimer timer) {
+		// in the deterministic mode (-Dgvgai.iterations), the search has to finish, however long it takes
+		if (!on || budget.isFixed()) return search.get();
+
+		if (running != null && !running.isDone()) {
+			// the last search is still stuck in the forward model, so we cannot start another one
+			skipped++;
+			overruns++;
+			return FALLBACK;
+		}
+
+		bestSoFar = FALLBACK;
+		budget.resume();
+		running = WORKERS.submit(() -> {
+			Thread.currentThread().setName(threadName);
+			Seeds.use(seeds);
+			try {
+				return search.get();
+			}
+			finally {
+				Seeds.unseed();
+			}
+		});
+		long waitNanos = timer.remainingTimeMillis() * 1000000 - marginNanos;
+		try {
+			return running.get(Math.max(0, waitNanos), TimeUnit.NANOSECONDS);
+		}
+		catch (TimeoutException e) {
+			// out of time: take what we have, and tell the search to wrap up
+			budget.stop();
+			overruns++;
+			return bestSoFar;
+		}
+		catch (InterruptedException e) {
+			budget.stop();
+			Thread.currentThread().interrupt();
+			return bestSoFar;
+		}
+		catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			if (cause instanceof Error) throw (Error) cause;
+			throw new RuntimeException(cause);
+		}
+	}
+
+	public boolean isOn() { return on; }
+	public long overruns() { return overruns; }
+	public long skipped() { return skipped; }
+}
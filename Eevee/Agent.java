@@ -41,15 +41,44 @@ import java.util.*;
 import java.util.ArrayList;
 // import needed for random number generation
 import java.util.Random;
-
-public class Agent extends AbstractPlayer {
+// import needed for remembering states we have already evaluated
+import Common.StateCache;
+// import needed for finding the closest sprites quickly
+import Common.SpatialIndex;
+// import needed for deciding how much work still fits in this tick
+import Common.TimeBudget;
+// import needed for reporting how much work we did
+import Common.Instrumented;
+import Common.TickStats;
+import Common.ActEvent;
+// import needed for always answering before the deadline
+import Common.Watchdog;
+// import needed for playing a game again with the same random numbers
+import Common.Seeds;
+// import needed for reading the tunable settings
+import Common.Config;
+
+public class Agent extends AbstractPlayer implements Instrumented {
 
 	int actionNo = 0;
-	final int populationSize = 6;
-	final int muSize = 2;
-	final int lamSize = populationSize - muSize;
-	final int totalGenerations = 30;
-	Random rng = new Random();
+	// the tunable settings (see Common.Config)
+	final int populationSize;
+	final int muSize;
+	final int lamSize;
+	final int totalGenerations;
+	Random rng = Seeds.newRandom();
+	// the best individual is copied into the population every generation,
+	// so we see the same states many times -- remember how good they were
+	final int cacheSize = 1024;
+	StateCache<Double> evalCache = new StateCache<Double>(cacheSize);
+	// reused to find the closest sprites of every state we evaluate
+	SpatialIndex index = new SpatialIndex();
+	// learns how long copies, advances and generations take in this game
+	TimeBudget budget = new TimeBudget();
+	// how much work the last act() did
+	TickStats stats = new TickStats("Eevee");
+	// (when switched on) runs the search on its own thread, and answers with the best ancestor's move at the deadline
+	Watchdog watchdog = new Watchdog("Eevee", budget);
 
 	public class StateTuple implements Comparable<StateTuple> {
 		public StateTuple(int x, double y) {
@@ -73,8 +102,15 @@ public class Agent extends AbstractPlayer {
 	}
 
 	// constructor, where the controller is first created to play the entire game
-	public Agent(StateObservation states, ElapsedCpuTimer elapsedTime) {
+	public Agent(StateObservation states, ElapsedCpuTimer elapsedTime) { this(states, elapsedTime, Config.fromSystem()); }
+
+	// the same, with the settings from 'config' (Eevee.populationSize, Eevee.muSize, Eevee.totalGenerations)
+	public Agent(StateObservation states, ElapsedCpuTimer elapsedTime, Config config) {
 		// do all initializations here
+		populationSize = Math.max(2, config.getInt("Eevee.populationSize", 6));
+		muSize = Math.min(populationSize, Math.max(1, config.getInt("Eevee.muSize", 2)));
+		lamSize = populationSize - muSize;
+		totalGenerations = Math.max(1, config.getInt("Eevee.totalGenerations", 30));
 	}
 
 	// evaluate a specific state based on some heuristics
@@ -83,83 +119,116 @@ public class Agent extends AbstractPlayer {
 	// npc's in different games hold different meanings--some you want to get close to, some you don't
 	// this works badly in games that do not utilize 'score'
 	public double stateEval ( StateObservation someState ) {
+		long fingerprint = StateCache.fingerprint(someState);
+		Double stateVal = evalCache.get(fingerprint);
+		if (stateVal == null) {
+			stateVal = computeStateEval(someState);
+			evalCache.put(fingerprint, stateVal);
+		}
+		return stateVal;
+	}
+
+	// actually evaluate a state that is not in the cache
+	public double computeStateEval ( StateObservation someState ) {
 
 		double stateVal = 0;
 
 		double score = someState.getGameScore();
-		Vector2d myPosition = someState.getAvatarPosition();
-		ArrayList<Observation>[] npcPositions = someState.getNPCPositions(myPosition);
-		ArrayList<Observation>[] portalPositions = someState.getPortalsPositions(myPosition);
-		ArrayList<Observation>[] resourcesPositions = someState.getResourcesPositions(myPosition);
 
 		if (someState.getGameWinner() == Types.WINNER.PLAYER_WINS) { return 999999999; }
 		if (someState.getGameWinner() == Types.WINNER.PLAYER_LOSES) { return -99999999; }
 
+		// find the closest sprites of every type from the grid, instead of sorting position lists
+		index.build(someState);
+
 		// better value for higher scores
 		stateVal += score * 100;
 
 		// better value if closer to closest resource of each type
 		// but even better if less resources (means we picked it up)
-		int noResources = 0;
-		if (resourcesPositions != null) {
-			for (int i = 0; i < resourcesPositions.length; i++) {
-				noResources += resourcesPositions[i].size();
-				if (resourcesPositions[i].size() > 0) {
-					Vector2d closestResPos = resourcesPositions[i].get(0).position;
-					double distToResource = myPosition.dist(closestResPos);
-					// the farther away it is, the worst the stateVal will be
-					stateVal -= distToResource*5;
-				}
-			}
+		for (int i = 0; i < index.types(Types.TYPE_RESOURCE); i++) {
+			double distToResource = index.nearestDistance(Types.TYPE_RESOURCE, i);
+			// the farther away it is, the worst the stateVal will be
+			if (distToResource >= 0) stateVal -= distToResource*5;
 		}
-		stateVal -= noResources * 100;
+		stateVal -= index.count(Types.TYPE_RESOURCE) * 100;
 
 		// better value if closer to closest portal of each type
 		// what if there is a wall between us and the portal? --> in 'zelda' this is why we die
-		if (portalPositions != null) {
-			for (int i = 0; i < portalPositions.length; i++) {
-				if (portalPositions[i].size() > 0) {
-					Vector2d closestPorPos = portalPositions[i].get(0).position;
-					double distToPortal = myPosition.dist(closestPorPos);
-					// the farther away it is, the worst the stateVal will be
-					stateVal -= distToPortal / 5;
-				}
-			}
+		for (int i = 0; i < index.types(Types.TYPE_PORTAL); i++) {
+			double distToPortal = index.nearestDistance(Types.TYPE_PORTAL, i);
+			// the farther away it is, the worst the stateVal will be
+			if (distToPortal >= 0) stateVal -= distToPortal / 5;
 		}
 
 		// better value if less NPCs
 		int noNPC = 0;
-		if (npcPositions != null) {
-			for (int i = 0; i < npcPositions.length; i++) {
-				noNPC = npcPositions[i].size();
-				if (npcPositions[i].size() > 0) {
-					Vector2d closestNPCPos = npcPositions[i].get(0).position;
-					double distToNPC = myPosition.dist(closestNPCPos);
-					// to be a bit more *aggressive* on the gameplay, we will
-					// make our heuristic move us *closer* to NPCs, regardless of
-					// whether they are harmful or not
-					stateVal -= distToNPC / 80;
-				}
-				if (npcPositions[i].size() > 1) {
-					Vector2d farthestNPCPos = npcPositions[i].get(npcPositions[i].size()-1).position;
-					double distToFar = myPosition.dist(farthestNPCPos);
-					//stateVal -= distToFar / 50;
-				}
-
-			}
+		for (int i = 0; i < index.types(Types.TYPE_NPC); i++) {
+			noNPC = index.count(Types.TYPE_NPC, i);
+			double distToNPC = index.nearestDistance(Types.TYPE_NPC, i);
+			// to be a bit more *aggressive* on the gameplay, we will
+			// make our heuristic move us *closer* to NPCs, regardless of
+			// whether they are harmful or not
+			if (distToNPC >= 0) stateVal -= distToNPC / 80;
 		}
 		stateVal -= noNPC*300;
 
 		return stateVal;
 	}
 
+	// evaluate how good each of the individuals are, and return their scores in ascending order
+	// (this does not touch the forward model, so we do not check the time in between)
+	public ArrayList<StateTuple> rankPopulation ( ArrayList<StateAndAncestor> population, ArrayList<StateTuple> stateScore ) {
+		stateScore.clear();
+		for (int i = 0; i < population.size(); i++) {
+			// state tuples have two things: an id (int) and a score (double)
+			stateScore.add( new StateTuple( i, stateEval(population.get(i).myState) ) );
+		}
+
+		ArrayList<StateTuple> toSortScores = new ArrayList<StateTuple>();
+
+		for (StateTuple p : stateScore) { toSortScores.add( new StateTuple(p.stateno, p.statescore) ); }
+
+		// this will sort them in ascending order of their score
+		Collections.sort(toSortScores);
+		return toSortScores;
+	}
+
+	// how much better the best individual is than the best one whose first move is different
+	// (1 if they all start with the same move, 0 if it is a tie)
+	public double fitnessMargin(ArrayList<StateAndAncestor> population, ArrayList<StateTuple> sortedScores, ArrayList<Types.ACTIONS> firstMove) {
+		int last = sortedScores.size() - 1;
+		Types.ACTIONS bestMove = firstMove.get(population.get(sortedScores.get(last).stateno).ancesNo);
+		double best = sortedScores.get(last).statescore;
+		for (int i = last - 1; i >= 0; i--) {
+			if (firstMove.get(population.get(sortedScores.get(i).stateno).ancesNo) == bestMove) continue;
+			double other = sortedScores.get(i).statescore;
+			double scale = Math.abs(best) + Math.abs(other);
+			return (scale == 0) ? 0 : Math.max(0, best - other) / scale;
+		}
+		return 1;
+	}
+
 	// at every 'state' the controller must make an action -- this method is thus called
 	// this MUST return in 40 ms to correctly perform an action -- this is given by 'origTime'
 	public Types.ACTIONS act(StateObservation origState, ElapsedCpuTimer origTime) {
+		return watchdog.act(() -> search(origState, origTime), origTime);
+	}
+
+	// the search of one tick (on the watchdog's thread, if it is switched on)
+	public Types.ACTIONS search(StateObservation origState, ElapsedCpuTimer origTime) {
+		ActEvent event = new ActEvent();
+		event.begin();
+
+		budget.startTick(origTime);
 
 		// generate arraylist of potential future states
 		ArrayList<StateAndAncestor> population = new ArrayList<StateAndAncestor>();
-		for (int i = 0; i < populationSize; i++) { population.add( new StateAndAncestor (origState.copy(),i)); }
+		for (int i = 0; i < populationSize; i++) {
+			long t = budget.begin(TimeBudget.COPY);
+			population.add( new StateAndAncestor (origState.copy(),i));
+			budget.end(TimeBudget.COPY, t);
+		}
 
 		// for each of the generated states, make a randomized move, based on how many moves are available
 		int numAvailMoves = origState.getAvailableActions().size();
@@ -171,78 +240,74 @@ public class Agent extends AbstractPlayer {
 			// it is good to remember the first move, so we can pick it later on
 			firstMove.add( origState.getAvailableActions().get(actNo) ); 
 			// actually apply the move to the copied state
+			long t = budget.begin(TimeBudget.ADVANCE);
 			population.get(i).myState.advance( origState.getAvailableActions().get(actNo) );
+			budget.end(TimeBudget.ADVANCE, t);
 		}
 
 		int generationNo = 1;
-		double remainingtime = origTime.remainingTimeMillis();
 		int bestActor = 0; 	// the index of the individual in the population who is best
+		watchdog.publish(firstMove.get(bestActor));
+		double bestScore = 0, meanScore = 0;	// how good the population was at the last ranking
+		double confidence = 0;	// how much the best individual beats the best one that starts with another move
 
 		ArrayList<StateTuple> stateScore = new ArrayList<StateTuple>();
-		while ( generationNo < totalGenerations && remainingtime > 5.0 ) {
-			stateScore.clear();
-			// evaluate how good each of the individuals are
-			for (int i = 0; i < populationSize; i++) {
-				// state tuples have two things: an id (int) and a score (double)
-				stateScore.add( new StateTuple( i, stateEval(population.get(i).myState) ) );
-				remainingtime = origTime.remainingTimeMillis();
-				if (remainingtime < 3.0) break;
-			}
-
-			remainingtime = origTime.remainingTimeMillis();
-			if (remainingtime < 3.0) break;
-
+		// keep going while another generation is still expected to finish before the deadline
+		while ( generationNo < totalGenerations && budget.fits(TimeBudget.ITERATION) ) {
+			long generationStart = budget.start();
 			// pick the best 'mu' individuals and replace the remaining 'lambda' individuals
-			ArrayList<StateTuple> toSortScores = new ArrayList<StateTuple>();
-
-			for (StateTuple p : stateScore) { toSortScores.add( new StateTuple(p.stateno, p.statescore) ); }
-
-			// this will sort them in ascending order of their score
-			Collections.sort(toSortScores);
+			ArrayList<StateTuple> toSortScores = rankPopulation(population, stateScore);
 
 			int sortedsize = toSortScores.size();
 			//for (int i = 0; i < sortedsize; i++)
 				//System.out.println(toSortScores.get(i).stateno + " s: " + toSortScores.get(i).statescore);
 			// the best actor is the ancestor of who is sorted the highest -- just keep track of index of who it is!
 			bestActor = population.get(toSortScores.get(sortedsize-1).stateno).ancesNo;
-			remainingtime = origTime.remainingTimeMillis();
-			if (remainingtime < 3.0) break;
+			watchdog.publish(firstMove.get(bestActor));
+			bestScore = toSortScores.get(sortedsize-1).statescore;
+			meanScore = 0;
+			for (StateTuple p : toSortScores) { meanScore += p.statescore / sortedsize; }
+			confidence = fitnessMargin(population, toSortScores, firstMove);
 			// go through the lowest 'lambda' inviduals and replace them in the original population
 			// note: we will only copy over the *best* state; this may limit diversity
 			//System.out.println("-------");
-			for (int i = 0; i < lamSize; i++) {
-				
+			// (we ask once how many of the copies still fit, instead of before every copy)
+			int copies = budget.howMany(TimeBudget.COPY, lamSize);
+			boolean outOfTime = copies < lamSize;
+			for (int i = 0; i < copies; i++) {
+
 				// get indexes of the current individual (to replace) and index of the best individual
 				int indexOfReplacedIndividual = toSortScores.get(i).stateno;
 				int indexOfBestIndividual = toSortScores.get(populationSize-1).stateno;
 
 				// copy state of the best individual, and descend it to our new individual (reproduction)
 				// remember to retain memory of the best ancestor of this individual as well
+				long t = budget.begin(TimeBudget.COPY);
 				StateObservation stateOfBestIndividual = population.get(indexOfBestIndividual).myState.copy();
+				budget.end(TimeBudget.COPY, t);
 				int ancestorOfBestIndividual = population.get(indexOfBestIndividual).ancesNo;
 				StateAndAncestor newIndividual = new StateAndAncestor(stateOfBestIndividual, ancestorOfBestIndividual);
 
 				population.set( indexOfReplacedIndividual, newIndividual );
-				remainingtime = origTime.remainingTimeMillis();
-				if (remainingtime < 3.0) break;
 			}
 
-			remainingtime = origTime.remainingTimeMillis();
-			if (remainingtime < 3.0) break;
+			if (outOfTime) break;
 
 			// now that everything is in the 'best' next state, we will generate another set of random actions to perform
 			// we will perform a random action for each copied state (individual) to progress the tree search
-			for (int i = 0; i < populationSize; i++) {
+			int advances = budget.howMany(TimeBudget.ADVANCE, populationSize);
+			for (int i = 0; i < advances && !budget.isStopped(); i++) {
 				int numMoves = population.get(i).myState.getAvailableActions().size();
 				// this will happen if one of the individuals has died and no move remains
 				if (numMoves > 0) {
 					int moveSelect = rng.nextInt(numMoves);
+					long t = budget.begin(TimeBudget.ADVANCE);
 					population.get(i).myState.advance( population.get(i).myState.getAvailableActions().get( moveSelect ) );
+					budget.end(TimeBudget.ADVANCE, t);
 					//System.out.println("i: " + i + " new move: " + moveSelect);
 				}
-				remainingtime = origTime.remainingTimeMillis();
-				if (remainingtime < 3.0) break;
 			}
+			budget.record(TimeBudget.ITERATION, generationStart);
 			generationNo++;
 		}
 
@@ -250,12 +315,22 @@ public class Agent extends AbstractPlayer {
 		Types.ACTIONS finalAction = firstMove.get(bestActor);
 
 		//System.out.println("Best actor: " + bestActor);
-		//System.out.println(origTime.remainingTimeMillis()); // if this is 0, then we are out of time
+		//System.out.println(budget.remainingMillis()); // if this is negative, then we are out of time
 
 		//System.out.println("-------");
 		//System.out.println("-------");
 
+		stats.record(budget);
+		stats.tick = origState.getGameTick();
+		stats.treeSize = populationSize;
+		stats.bestScore = bestScore;
+		stats.meanScore = meanScore;
+		stats.confidence = confidence;
+		stats.watchdogOverruns = watchdog.overruns();
+		stats.emit(event);
 		return finalAction;
 	}
 
+	public TickStats tickStats() { return stats; }
+
 }
\ No newline at end of file
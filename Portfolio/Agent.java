@@ -0,0 +1,250 @@
+/*********************************************************************
+** Code written by Wells Lucas Santo
+** This code was written as part of the CS9223 course at NYU.
+** If you wish to reproduce this code in any way, please give credit.
+**********************************************************************/
+
+// Intention: Each of the three controllers is good at different games -- Savague does well in
+// shooters, Eevee lives and dies by its heuristics, Algore slowly learns a game. Instead of picking
+// one per game, this controller runs all three at the same time, on separate cores, and lets
+// them vote. Spare cores become playing strength, without taking any more time per tick.
+
+// How it works:
+// Every tick, each member gets its own copy of the state and its own ElapsedCpuTimer, and
+// searches on its own thread. When their time is up, each member's move gets a vote, weighed by:
+//    - how sure the member is of it (the confidence in its TickStats: visit share for Savague,
+//      fitness margin for Eevee, output margin for Algore)
+//    - how much we have come to trust that member in this game (its weight)
+// The move with the most votes is played.
+// The weights are learned over the game (like the 'Hedge' algorithm): when the score goes up
+// after we played a move, the members that proposed it gain weight, and when it goes down they
+// lose some. A member that did not answer in time also loses weight. Every member keeps a small
+// minimum weight, so it can come back when the game changes.
+// The weights also decide how the time is shared out: the member we trust most searches for the
+// whole tick, the others for less (but never less than a quarter of it). When there are fewer
+// cores than members, this hands most of the CPU to the best member.
+
+// Note: a member that is still busy with the search of an earlier tick when the next tick starts
+// (say, stuck in a very slow advance()) does not get a second search started next to it. It is left
+// to finish in the background, and counts as not having answered this tick -- whatever it comes
+// up with was searched from an earlier state, so it gets no vote.
+
+// Note: the members search on a pool of daemon threads shared by every Portfolio, so a finished
+// game leaves no threads behind (idle ones go away after a minute).
+
+package Portfolio;
+
+// basic imports to allow the controller to work
+import core.game.StateObservation;
+import core.player.AbstractPlayer;
+import tools.ElapsedCpuTimer;
+// import needed for getting Types.ACTIONS
+import ontology.Types;
+// import needed for dealing with some java functionality
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+// import needed for reporting how much work we did
+import Common.Instrumented;
+import Common.TickStats;
+import Common.ActEvent;
+// import needed for knowing whether we play by the clock
+import Common.TimeBudget;
+// import needed for handing the tunable settings to the members
+import Common.Config;
+// import needed for handing the game's seed to the members' threads
+import Common.Seeds;
+
+public class Agent extends AbstractPlayer implements Instrumented {
+
+	// how quickly the weights follow the game
+	final double learningRate = 0.5;
+	// every member always keeps at least this much of the weight
+	final double minWeight = 0.1;
+	// the member we trust least still searches for this share of the tick
+	final double minTimeShare = 0.25;
+	// a vote never counts for nothing, even if its member is not sure at all
+	final double baseConfidence = 0.1;
+	// time kept for collecting the answers and voting
+	final long marginMillis = 3;
+
+	// the controllers in the portfolio
+	final AbstractPlayer[] members;
+	final String[] names = { "Savague", "Eevee", "Algore" };
+	// how much we trust each member (they always add up to 1)
+	final double[] weight;
+	// the threads the members search on, shared by all Portfolios
+	static final AtomicInteger THREADS = new AtomicInteger();
+	static final ExecutorService POOL = Executors.newCachedThreadPool(r -> {
+		Thread t = new Thread(r, "portfolio-member-" + THREADS.incrementAndGet());
+		t.setDaemon(true);
+		return t;
+	});
+	// each member's search (of this tick, or of an earlier one it is still busy with)
+	final ArrayList<Future<Types.ACTIONS>> running = new ArrayList<Future<Types.ACTIONS>>();
+	// the seed stream each member's thread gets while it searches (see Seeds)
+	final SplittableRandom[] seeds;
+	// what each member proposed last tick (null if it did not answer in time)
+	final Types.ACTIONS[] proposal;
+	Types.ACTIONS lastAction = null;
+	double lastScore = 0;
+	// in the deterministic mode (-Dgvgai.iterations) we wait for every member, however long it takes
+	final boolean fixed = TimeBudget.fixedIterations() > 0;
+	// how many times each member did not answer in time
+	final long[] missed;
+	// how much work the last act() did (of all members together)
+	TickStats stats = new TickStats("Portfolio");
+
+	// constructor, where the controller is first created to play the entire game
+	public Agent(StateObservation states, ElapsedCpuTimer elapsedTime) { this(states, elapsedTime, Config.fromSystem()); }
+
+	// the same, with the settings for the members from 'config'
+	public Agent(StateObservation states, ElapsedCpuTimer elapsedTime, Config config) {
+		members = new AbstractPlayer[] {
+			new Savague.Agent(states, elapsedTime, config),
+			new Eevee.Agent(states, elapsedTime, config),
+			new Algore.Agent(states, elapsedTime, config)
+		};
+		weight = new double[members.length];
+		proposal = new Types.ACTIONS[members.length];
+		missed = new long[members.length];
+		seeds = new SplittableRandom[members.length];
+		for (int m = 0; m < members.length; m++) {
+			weight[m] = 1.0 / members.length;
+			running.add(null);
+			seeds[m] = Seeds.split();
+		}
+	}
+
+	// at every 'state' the controller must make an action -- this method is thus called
+	// this MUST return in 40 ms to correctly perform an action -- this is given by 'origTime'
+	public Types.ACTIONS act(StateObservation origState, ElapsedCpuTimer origTime) {
+		ActEvent event = new ActEvent();
+		event.begin();
+
+		// first learn from what our last move did to the score
+		learn(origState);
+
+		long tickMillis = origTime.remainingTimeMillis() - marginMillis;
+		long deadline = System.nanoTime() + tickMillis * 1000000;
+		double bestWeight = 0;
+		for (double w : weight) bestWeight = Math.max(bestWeight, w);
+
+		// start every member that is not still busy with an earlier tick
+		boolean[] busy = new boolean[members.length];
+		for (int m = 0; m < members.length; m++) {
+			Future<Types.ACTIONS> last = running.get(m);
+			busy[m] = last != null && !last.isDone();
+			if (busy[m]) continue;
+			final AbstractPlayer member = members[m];
+			final String threadName = "Portfolio-" + names[m];
+			final SplittableRandom stream = seeds[m];
+			final StateObservation copy = origState.copy();
+			// its share of the tick -- but no more than is left after the copies made so far
+			long shareMillis = (long) (tickMillis * Math.max(minTimeShare, weight[m] / bestWeight));
+			long leftMillis = (deadline - System.nanoTime()) / 1000000;
+			final ElapsedCpuTimer timer = new ElapsedCpuTimer();
+			timer.setMaxTimeMillis(Math.max(1, Math.min(shareMillis, leftMillis)));
+			running.set(m, POOL.submit(() -> {
+				Thread.currentThread().setName(threadName);
+				Seeds.use(stream);
+				try {
+					return member.act(copy, timer);
+				}
+				finally {
+					Seeds.unseed();
+				}
+			}));
+		}
+
+		// collect the answers, and let every member vote for its move
+		ArrayList<Types.ACTIONS> actions = origState.getAvailableActions();
+		double[] votes = new double[actions.size()];
+		stats.iterations = stats.copies = stats.advances = stats.surrogateSteps = stats.treeSize = 0;
+		for (int m = 0; m < members.length; m++) {
+			proposal[m] = busy[m] ? null : await(m, deadline);
+			if (proposal[m] == null) { missed[m]++; continue; }
+			TickStats memberStats = ((Instrumented) members[m]).tickStats();
+			int a = actions.indexOf(proposal[m]);
+			if (a >= 0) votes[a] += weight[m] * (baseConfidence + memberStats.confidence);
+			stats.iterations += memberStats.iterations;
+			stats.copies += memberStats.copies;
+			stats.advances += memberStats.advances;
+			stats.surrogateSteps += memberStats.surrogateSteps;
+			stats.treeSize += memberStats.treeSize;
+		}
+
+		// play the move with the most votes (or nothing, if nobody answered)
+		int bestAction = -1;
+		double totalVotes = 0;
+		for (int a = 0; a < votes.length; a++) {
+			totalVotes += votes[a];
+			if (votes[a] > 0 && (bestAction < 0 || votes[a] > votes[bestAction])) bestAction = a;
+		}
+		lastAction = (bestAction < 0) ? Types.ACTIONS.ACTION_NIL : actions.get(bestAction);
+
+		stats.tick = origState.getGameTick();
+		stats.bestScore = (bestAction < 0) ? 0 : votes[bestAction];
+		stats.meanScore = (votes.length == 0) ? 0 : totalVotes / votes.length;
+		stats.confidence = (bestAction < 0) ? 0 : votes[bestAction] / totalVotes;
+		stats.remainingMillis = origTime.remainingTimeMillis();
+		stats.overrun = origTime.exceededMaxTime();
+		stats.emit(event);
+		return lastAction;
+	}
+
+	// wait (until the deadline at most) for member 'm' to answer -- null if it does not
+	Types.ACTIONS await(int m, long deadline) {
+		try {
+			if (fixed) return running.get(m).get();
+			return running.get(m).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+		}
+		catch (TimeoutException e) {
+			return null;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+		catch (ExecutionException e) {
+			// one member crashing should not take the others down with it
+			System.err.println("Portfolio: " + names[m] + " failed: " + e.getCause());
+			return null;
+		}
+	}
+
+	// update the weights from what happened to the score after our last move
+	public void learn(StateObservation state) {
+		double score = state.getGameScore();
+		if (lastAction != null) {
+			double change = Math.signum(score - lastScore);
+			double total = 0;
+			for (int m = 0; m < members.length; m++) {
+				double reward;
+				// no answer in time is always bad
+				if (proposal[m] == null) reward = -1;
+				// only the members that proposed the move we played can take credit (or blame) for it
+				else if (proposal[m] == lastAction) reward = change;
+				else reward = 0;
+				weight[m] *= Math.exp(learningRate * reward);
+				total += weight[m];
+			}
+			// normalize, but keep a minimum weight for every member
+			for (int m = 0; m < members.length; m++)
+				weight[m] = (1 - minWeight * members.length) * weight[m] / total + minWeight;
+		}
+		lastScore = score;
+	}
+
+	public double[] weights() { return weight.clone(); }
+	public long missed(int member) { return missed[member]; }
+
+	public TickStats tickStats() { return stats; }
+
+}
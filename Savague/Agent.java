@@ -52,13 +52,60 @@ import java.util.Random;
 import java.awt.*;
 import java.util.*;
 import java.util.ArrayList;
+// import needed for remembering states we have already evaluated
+import Common.StateCache;
+// import needed for finding the closest sprites quickly
+import Common.SpatialIndex;
+// import needed for deciding how much work still fits in this tick
+import Common.TimeBudget;
+// import needed for reporting how much work we did
+import Common.Instrumented;
+import Common.TickStats;
+import Common.ActEvent;
+// import needed for always answering before the deadline
+import Common.Watchdog;
+// import needed for playing a game again with the same random numbers
+import Common.Seeds;
+// import needed for reading the tunable settings
+import Common.Config;
+// import needed for playing the deep part of a playout on a cheap model of the game
+import Common.RealForwardModel;
+import Common.GridSurrogate;
 
 
-public class Agent extends AbstractPlayer {
+public class Agent extends AbstractPlayer implements Instrumented {
 
-	final int expansionDepth = 25;
+	// the tunable settings (see Common.Config)
+	final int expansionDepth;
+	// how much we value exploring in the UCT function
+	final double uctWeight;
+	// playouts only use the real forward model down to this depth, and go on to 'surrogateDepth'
+	// on the GridSurrogate after that (a negative realDepth means: only the real model, as before)
+	// -- the tree itself (which holds real states) then also stops at realDepth
+	final int realDepth;
+	final int surrogateDepth;
+	final int treeDepth;
+	RealForwardModel real = new RealForwardModel();
+	GridSurrogate surrogate = new GridSurrogate();
+	// number of surrogate steps of this tick
+	long surrogateSteps;
 	Node root;
+	// number of nodes in the tree of this tick
+	int treeSize;
 	int[][] positionCount;
+	// remember the value of the playout states we have already evaluated
+	final int cacheSize = 1024;
+	StateCache<Double> valueCache = new StateCache<Double>(cacheSize);
+	// reused to find the closest NPC of every state we evaluate
+	SpatialIndex index = new SpatialIndex();
+	// picks the moves of the random playouts (one for the whole game, seeded by Seeds)
+	Random random = Seeds.newRandom();
+	// learns how long copies, advances and iterations take in this game
+	TimeBudget budget = new TimeBudget();
+	// how much work the last act() did
+	TickStats stats = new TickStats("Savague");
+	// (when switched on) runs the search on its own thread, and answers with the best child so far at the deadline
+	Watchdog watchdog = new Watchdog("Savague", budget);
 
 	public class Node {
 
@@ -67,6 +114,7 @@ public class Agent extends AbstractPlayer {
 			totalReward = 0;
 			visitCount = 0;
 			parent = par;
+			treeSize++;
 			children = new Node[ thisState.getAvailableActions().size() ];
 			if (par != null)
 				depth = par.depth+1;
@@ -83,7 +131,16 @@ public class Agent extends AbstractPlayer {
 	}
 
 	// constructor, where the controller is first created to play the entire game
-	public Agent(StateObservation states, ElapsedCpuTimer elapsedTime) {
+	public Agent(StateObservation states, ElapsedCpuTimer elapsedTime) { this(states, elapsedTime, Config.fromSystem()); }
+
+	// the same, with the settings from 'config'
+	// (Savague.expansionDepth, Savague.uctWeight, Savague.realDepth, Savague.surrogateDepth)
+	public Agent(StateObservation states, ElapsedCpuTimer elapsedTime, Config config) {
+		expansionDepth = Math.max(1, config.getInt("Savague.expansionDepth", 25));
+		uctWeight = config.getDouble("Savague.uctWeight", 0.1);
+		realDepth = config.getInt("Savague.realDepth", -1);
+		surrogateDepth = config.getInt("Savague.surrogateDepth", 100);
+		treeDepth = (realDepth < 0) ? expansionDepth : Math.max(1, Math.min(realDepth, expansionDepth));
 		// initialize the positionCount to all 0's and the size of the entire grid
 		//ArrayList<Observation>[][] gridSpace = states.getObservationGrid();
 		int x = 1000;
@@ -99,9 +156,14 @@ public class Agent extends AbstractPlayer {
 
 	// T - initialize the root and begin the UCT search
 	public int runMCTS (StateObservation origState, ElapsedCpuTimer origTime) {
+		treeSize = 0;
+		surrogateSteps = 0;
 		root = new Node (origState, null);
+		budget.startTick(origTime);
 		//System.out.println(root.children.length);
-		while (origTime.remainingTimeMillis() > 3.0) {
+		// keep going while another iteration is still expected to finish before the deadline
+		while (budget.fits(TimeBudget.ITERATION)) {
+			long iterationStart = budget.start();
 			// expanded should be a child of 'root'
 			Node expanded = treePolicy(root);
 			// assignReward should reflect the value of 'expanded'
@@ -113,10 +175,24 @@ public class Agent extends AbstractPlayer {
 			// we remember how 'good' that state is, and propagate that
 			// reward + visit increment up the tree
 			backProp(expanded, valueChange);
+			budget.record(TimeBudget.ITERATION, iterationStart);
+			// let the watchdog know which move we would make right now
+			if (watchdog.isOn()) watchdog.publish(origState.getAvailableActions().get( mostRewardChild(root) ));
 			//System.out.println("visit: " + root.visitCount);
 		}
-		//System.out.println("remaining time:" + origTime.remainingTimeMillis());
-		return mostRewardChild(root);
+		//System.out.println("remaining time:" + budget.remainingMillis());
+		int bestChildNo = mostRewardChild(root);
+		stats.record(budget);
+		stats.tick = origState.getGameTick();
+		stats.treeSize = treeSize;
+		stats.surrogateSteps = surrogateSteps;
+		stats.watchdogOverruns = watchdog.overruns();
+		Node bestChild = (bestChildNo < 0) ? null : root.children[bestChildNo];
+		stats.bestScore = (bestChild == null || bestChild.visitCount == 0) ? 0 : bestChild.totalReward / bestChild.visitCount;
+		stats.meanScore = (root.visitCount == 0) ? 0 : root.totalReward / root.visitCount;
+		// how much of the search went into the move we pick
+		stats.confidence = (bestChild == null || root.visitCount == 0) ? 0 : (double) bestChild.visitCount / root.visitCount;
+		return bestChildNo;
 	}
 
 	// T - we will choose to expand the root repeatedly until we get to a leaf
@@ -125,7 +201,7 @@ public class Agent extends AbstractPlayer {
 		// while we haven't hit the very bottom of our tree, we will
 		// continue to expand at this node
 		Node thisNode = roNode;
-		while (!thisNode.thisState.isGameOver() && expansionDepth > thisNode.depth ) {
+		while (!thisNode.thisState.isGameOver() && treeDepth > thisNode.depth ) {
 			// if this particular node has not been fully expanded, we must
 			// visit all of its children at least once (gives diversity to our tree)
 			// "wouldn't this just expand every single child of the tree?""
@@ -139,7 +215,7 @@ public class Agent extends AbstractPlayer {
 			// otherwise, we will replace the 'exploredNode' with the 
 			// child that reaps the best reward (pick best descendent to update in value)
 			// second parameter determines how much we value diversity in exploration
-			thisNode = bestChild(thisNode, 0.1);
+			thisNode = bestChild(thisNode, uctWeight);
 			//System.out.println("Depth:" + roNode.depth);
 		}
 		// after we've explored the best route to the bottom of the tree,
@@ -153,9 +229,13 @@ public class Agent extends AbstractPlayer {
 	public Node expandTree ( Node roNode, int childNo ) {
 		// System.out.println(childNo + " expansion!");
 		// expanding action corresponding to 'childNo' in 'roNode'
+		long t = budget.begin(TimeBudget.COPY);
 		StateObservation childState = roNode.thisState.copy();
+		budget.end(TimeBudget.COPY, t);
 		//System.out.println( roNode.thisState.getAvailableActions().get(childNo) );
+		t = budget.begin(TimeBudget.ADVANCE);
 		childState.advance( roNode.thisState.getAvailableActions().get(childNo) );
+		budget.end(TimeBudget.ADVANCE, t);
 		// add that child to the root node
 		roNode.children[childNo] = new Node (childState, roNode);
 		// return child node
@@ -169,21 +249,64 @@ public class Agent extends AbstractPlayer {
 	// be sure to make 'win' and 'lose' rewards equal so that parent nodes
 	// can be 'balanced' out by wins and loses
 	public double assignReward ( Node baseNode, ElapsedCpuTimer origTime) {
-		StateObservation finalState = baseNode.thisState.copy();
+		boolean useSurrogate = realDepth >= 0;
+		int realLimit = useSurrogate ? Math.min(realDepth, expansionDepth) : expansionDepth;
 		int finalDepth = baseNode.depth;
-		Random random = new Random();
-		// make sure that for any of the nodes we are exploring, we
-		// go as deep as we can using random playouts
-		while (finalDepth < expansionDepth && origTime.remainingTimeMillis() > 5.0 && !finalState.isGameOver()) {
-			int actionNo = random.nextInt(finalState.getAvailableActions().size());
-			finalState.advance( finalState.getAvailableActions().get(actionNo) );
-			finalDepth++;
+		StateObservation finalState = baseNode.thisState;
+		// (a node that is already below 'realDepth' needs no copy -- the surrogate only reads it)
+		if (!useSurrogate || finalDepth < realLimit) {
+			long t = budget.begin(TimeBudget.COPY);
+			real.reset(baseNode.thisState);
+			budget.end(TimeBudget.COPY, t);
+			// make sure that for any of the nodes we are exploring, we
+			// go as deep as we can using random playouts (as deep as still fits in time)
+			int steps = budget.howMany(TimeBudget.ADVANCE, realLimit - finalDepth);
+			for (; steps > 0 && !real.isGameOver() && !budget.isStopped(); steps--) {
+				int actionNo = random.nextInt(real.actionCount());
+				t = budget.begin(TimeBudget.ADVANCE);
+				real.advance(actionNo);
+				budget.end(TimeBudget.ADVANCE, t);
+				finalDepth++;
+			}
+			finalState = real.state();
+		}
+		// the deep part of the playout is played on the surrogate
+		if (useSurrogate && !finalState.isGameOver()) return surrogatePlayout(finalState, finalDepth);
+		long fingerprint = StateCache.fingerprint(finalState);
+		Double stateVal = valueCache.get(fingerprint);
+		if (stateVal == null) {
+			stateVal = evaluateState(finalState);
+			valueCache.put(fingerprint, stateVal);
+		}
+		return stateVal;
+	}
+
+	// go on with a playout from 'fromState' (at 'depth') on the surrogate, down to 'surrogateDepth',
+	// and give a value to where the avatar ended up
+	public double surrogatePlayout ( StateObservation fromState, int depth ) {
+		surrogate.reset(fromState);
+		int actions = surrogate.actionCount();
+		for (; actions > 0 && depth < surrogateDepth; depth++) {
+			surrogate.advance(random.nextInt(actions));
+			surrogateSteps++;
 		}
+		// the surrogate keeps the score and the winner of 'fromState', and measures from the simulated avatar
+		return outcomeValue(surrogate.getGameWinner(), surrogate.getGameScore()) + npcValue(surrogate.index());
+	}
+
+	// the value of winning, losing and the score
+	public double outcomeValue ( Types.WINNER winner, double score ) {
 		double stateVal = 0;
-		if (finalState.getGameWinner() == Types.WINNER.PLAYER_WINS) { stateVal += 100000; }
+		if (winner == Types.WINNER.PLAYER_WINS) { stateVal += 100000; }
 		// give lower value on losing?
-		if (finalState.getGameWinner() == Types.WINNER.PLAYER_LOSES) { stateVal -= 5000; }
-		stateVal += finalState.getGameScore();
+		if (winner == Types.WINNER.PLAYER_LOSES) { stateVal -= 5000; }
+		stateVal += score;
+		return stateVal;
+	}
+
+	// give a value to the state we ended up in after the playout
+	public double evaluateState ( StateObservation finalState ) {
+		double stateVal = outcomeValue(finalState.getGameWinner(), finalState.getGameScore());
 		// the player keeps freezing in place... how to adjust for this?
 		// count how many times the player has been at this specific spot in the game, and penalize!
 		// but doesn't quite work out..
@@ -202,15 +325,21 @@ public class Agent extends AbstractPlayer {
 			stateVal -= distanceToObj;
 		}*/
 		// also encourage movement towards NPCs?
-		ArrayList<Observation>[] movingNPCs = finalState.getNPCPositions(myPosition);
-		if (movingNPCs != null && movingNPCs.length > 0 && movingNPCs[0].size() > 0) {
-			int totalNPCs = 0;
-			for (int i = 0; i < movingNPCs.length; i++) { totalNPCs += movingNPCs[i].size(); }
+		// (the closest NPC is found from the grid, instead of sorting position lists)
+		index.build(finalState);
+		stateVal += npcValue(index);
+		return stateVal;
+	}
+
+	// the value of the NPCs around the avatar (as seen by 'sprites')
+	public double npcValue ( SpatialIndex sprites ) {
+		double stateVal = 0;
+		if (sprites.types(Types.TYPE_NPC) > 0 && sprites.count(Types.TYPE_NPC, 0) > 0) {
+			int totalNPCs = sprites.count(Types.TYPE_NPC);
 			// if we can have less NPCs, then this is good as well?
 			stateVal -= totalNPCs*2;
-			Vector2d closestNPC = movingNPCs[0].get(0).reference;
-			double distanceToNPC = myPosition.dist(closestNPC);
-			stateVal -= distanceToNPC;
+			// (this used to subtract the distance to the closest NPC's 'reference' -- which is the
+			// avatar itself, so it was always 0, and is left out)
 		}
 		return stateVal;
 	}
@@ -271,9 +400,20 @@ public class Agent extends AbstractPlayer {
 	// D - at every 'state' the controller must make an action -- this method is thus called
 	// this MUST return in 40 ms to correctly perform an action -- this is given by 'origTime'
 	public Types.ACTIONS act(StateObservation origState, ElapsedCpuTimer origTime) {
+		return watchdog.act(() -> search(origState, origTime), origTime);
+	}
+
+	// the search of one tick (on the watchdog's thread, if it is switched on)
+	public Types.ACTIONS search(StateObservation origState, ElapsedCpuTimer origTime) {
+		ActEvent event = new ActEvent();
+		event.begin();
 		// startMCTS will initialize the root and start the search, returning an int
 		// that relates to the best action to take from this state
-		return origState.getAvailableActions().get( runMCTS(origState, origTime) );
+		Types.ACTIONS action = origState.getAvailableActions().get( runMCTS(origState, origTime) );
+		stats.emit(event);
+		return action;
 	}
 
+	public TickStats tickStats() { return stats; }
+
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+/*********************************************************************
+** Code written by Wells Lucas Santo
+** This code was written as part of the CS9223 course at NYU.
+** If you wish to reproduce this code in any way, please give credit.
+**********************************************************************/
+
+// Benchmark of one forward pass through one of Algore's neural nets.
+
+package Algore;
+
+// imports needed for JMH
+import org.openjdk.jmh.annotations.*;
+// import needed for dealing with some java functionality
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NeuralNetBenchmark {
+
+	// the number of outputs is the number of actions of the game
+	@Param({"3", "5"})
+	int actions;
+
+	Agent.NeuralNet net;
+	double[] inputs;
+
+	@Setup
+	public void setup() {
+		// a mutated child of 'adam', so that the weights are not all 0
+		net = new Agent.NeuralNet(new Agent.NeuralNet(8, 5, actions), new Random(1), 1.5);
+		// inputs of the same magnitude as Agent.stateValue gives
+		inputs = new double[] { 120.0, 4, 12.0, 300.0, 45.0, 90.0, 6, 0 };
+	}
+
+	@Benchmark
+	public double[] fullExcitation() { return net.fullExcitation(inputs); }
+}
@@ -0,0 +1,82 @@
+/*********************************************************************
+** Code written by Wells Lucas Santo
+** This code was written as part of the CS9223 course at NYU.
+** If you wish to reproduce this code in any way, please give credit.
+**********************************************************************/
+
+// Benchmark of whole act() calls of each controller against a synthetic game.
+
+// Note: act() always uses (nearly) the whole time it is given, so the ops/s of this benchmark
+// mostly shows how well a controller sticks to its budget. The interesting numbers are the
+// allocation rate and bytes per act() from the gc profiler (-prof gc).
+
+package Bench;
+
+// basic imports to allow the benchmark to work
+import core.player.AbstractPlayer;
+import tools.ElapsedCpuTimer;
+// import needed for getting Types.ACTIONS
+import ontology.Types;
+// import needed for the synthetic game
+import Harness.SyntheticState;
+// imports needed for JMH
+import org.openjdk.jmh.annotations.*;
+// import needed for dealing with some java functionality
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ActBenchmark {
+
+	@Param({"Algore", "Eevee", "Savague"})
+	String agentName;
+
+	// NPCs and resources in the game
+	@Param({"4", "32"})
+	int sprites;
+
+	@Param({"5"})
+	int actions;
+
+	// how long one advance() takes at least (0 = as fast as the synthetic game can go)
+	@Param({"0", "20000"})
+	long advanceNanos;
+
+	// the time given to every act(), in milliseconds
+	@Param({"10"})
+	long budgetMillis;
+
+	SyntheticState state;
+	AbstractPlayer agent;
+
+	@Setup
+	public void setup() {
+		SyntheticState.Config config = new SyntheticState.Config();
+		config.npcs = sprites;
+		config.resources = sprites;
+		config.actions = actions;
+		config.advanceNanos = advanceNanos;
+		state = new SyntheticState(config);
+		agent = createAgent(agentName, state);
+	}
+
+	static AbstractPlayer createAgent(String name, SyntheticState state) {
+		ElapsedCpuTimer timer = new ElapsedCpuTimer();
+		timer.setMaxTimeMillis(1000);
+		if (name.equals("Algore")) return new Algore.Agent(state, timer);
+		if (name.equals("Eevee")) return new Eevee.Agent(state, timer);
+		if (name.equals("Savague")) return new Savague.Agent(state, timer);
+		throw new IllegalArgumentException("Unknown agent: " + name);
+	}
+
+	@Benchmark
+	public Types.ACTIONS act() {
+		ElapsedCpuTimer timer = new ElapsedCpuTimer();
+		timer.setMaxTimeMillis(budgetMillis);
+		return agent.act(state, timer);
+	}
+}
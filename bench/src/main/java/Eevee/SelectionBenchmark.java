@@ -0,0 +1,71 @@
+/*********************************************************************
+** Code written by Wells Lucas Santo
+** This code was written as part of the CS9223 course at NYU.
+** If you wish to reproduce this code in any way, please give credit.
+**********************************************************************/
+
+// Benchmark of Eevee's selection step: evaluating every individual of the population and
+// sorting them by score, with and without the evaluation cache answering.
+
+package Eevee;
+
+// basic imports to allow the benchmark to work
+import core.game.StateObservation;
+import tools.ElapsedCpuTimer;
+// import needed for the synthetic game
+import Harness.SyntheticState;
+// imports needed for JMH
+import org.openjdk.jmh.annotations.*;
+// import needed for dealing with some java functionality
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SelectionBenchmark {
+
+	// number of NPCs (and resources) in the game, which is what evaluation cost grows with
+	@Param({"4", "32"})
+	int sprites;
+
+	// false: every evaluation misses the cache (a fresh population); true: every evaluation hits
+	@Param({"false", "true"})
+	boolean cached;
+
+	Agent agent;
+	ArrayList<Agent.StateAndAncestor> population;
+	ArrayList<Agent.StateTuple> stateScore;
+
+	@Setup
+	public void setup() {
+		SyntheticState.Config config = new SyntheticState.Config();
+		config.width = 30;
+		config.height = 20;
+		config.npcs = sprites;
+		config.resources = sprites;
+		SyntheticState state = new SyntheticState(config);
+		agent = new Agent(state, new ElapsedCpuTimer());
+
+		// a population of individuals that each made a few random moves
+		Random random = new Random(1);
+		population = new ArrayList<Agent.StateAndAncestor>();
+		for (int i = 0; i < agent.populationSize; i++) {
+			StateObservation copy = state.copy();
+			for (int j = 0; j < 3; j++)
+				copy.advance(copy.getAvailableActions().get(random.nextInt(copy.getAvailableActions().size())));
+			population.add(agent.new StateAndAncestor(copy, i));
+		}
+		stateScore = new ArrayList<Agent.StateTuple>();
+	}
+
+	@Benchmark
+	public ArrayList<Agent.StateTuple> rankPopulation() {
+		if (!cached) agent.evalCache.clear();
+		return agent.rankPopulation(population, stateScore);
+	}
+}
@@ -0,0 +1,84 @@
+/*********************************************************************
+** Code written by Wells Lucas Santo
+** This code was written as part of the CS9223 course at NYU.
+** If you wish to reproduce this code in any way, please give credit.
+**********************************************************************/
+
+// Benchmarks of the tree kernels of Savague (UCT selection and backpropagation) on a tree
+// that was built ahead of time on a synthetic game.
+
+package Savague;
+
+// basic imports to allow the benchmark to work
+import core.game.StateObservation;
+import tools.ElapsedCpuTimer;
+// import needed for the synthetic game
+import Harness.SyntheticState;
+// imports needed for JMH
+import org.openjdk.jmh.annotations.*;
+// import needed for dealing with some java functionality
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TreeBenchmark {
+
+	// number of children of every node
+	@Param({"3", "5"})
+	int actions;
+
+	// depth of the (full) tree we build
+	@Param({"3"})
+	int depth;
+
+	Agent agent;
+	Agent.Node root;
+	Agent.Node deepestLeaf;
+
+	@Setup
+	public void setup() {
+		SyntheticState.Config config = new SyntheticState.Config();
+		config.actions = actions;
+		SyntheticState state = new SyntheticState(config);
+		agent = new Agent(state, new ElapsedCpuTimer());
+
+		// build a full tree, and give every node a few visits, like a search would
+		root = agent.new Node(state, null);
+		deepestLeaf = expand(root);
+		Random random = new Random(1);
+		for (int i = 0; i < 1000; i++) {
+			Agent.Node node = root;
+			while (node.children.length > 0 && node.children[0] != null)
+				node = node.children[random.nextInt(node.children.length)];
+			agent.backProp(node, random.nextDouble() * 10);
+		}
+	}
+
+	// fully expand 'node' down to 'depth', returning one of the deepest nodes
+	Agent.Node expand(Agent.Node node) {
+		if (node.depth == depth || node.thisState.isGameOver()) return node;
+		Agent.Node deepest = node;
+		for (int i = 0; i < node.children.length; i++) {
+			Agent.Node child = expand(agent.expandTree(node, i));
+			if (child.depth > deepest.depth) deepest = child;
+		}
+		return deepest;
+	}
+
+	@Benchmark
+	public Agent.Node bestChild() { return agent.bestChild(root, 0.1); }
+
+	@Benchmark
+	public Agent.Node backProp() {
+		agent.backProp(deepestLeaf, 1.0);
+		return deepestLeaf;
+	}
+
+	@Benchmark
+	public int mostRewardChild() { return agent.mostRewardChild(root); }
+}
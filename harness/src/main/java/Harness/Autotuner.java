@@ -0,0 +1,227 @@
+/*********************************************************************
+** Code written by Wells Lucas Santo
+** This code was written as part of the CS9223 course at NYU.
+** If you wish to reproduce this code in any way, please give credit.
+**********************************************************************/
+
+// Finds good settings (see Common.Config) for one controller, game by game, by playing a lot of
+// headless games on all cores -- and writes them to '<game>.properties' files that the controller
+// can be started with (-Dgvgai.config=tuned/aliens.properties, or Tournament --config tuned).
+
+// How it works (successive halving):
+// We start with a number of candidate settings: the defaults, and random ones from the ranges
+// below. In the first round, every candidate plays only a few games (levels x seeds). The better
+// half goes on to the next round, where every candidate has played twice as many games, and so
+// on, until one is left. So most of the games are spent on the candidates that look good, and the
+// bad ones are thrown out early, after only a few games.
+// Candidates are compared by how many games they won, and then by their average score. All of
+// them play the same levels with the same seeds, so they are compared on the same games.
+
+// Usage:
+//    java -cp ... Harness.Autotuner --agent Savague --games aliens,zelda --levels 0-4 --seeds 1-4 \
+//        --candidates 16 --out tuned
+// Options:
+//    --agent       the controller to tune (Algore, Eevee or Savague)
+//    --candidates  how many settings to try (default: 16)
+//    --tunerSeed   seed for picking the candidates (default: 1)
+//    --out         directory to write '<game>.properties' to (default: tuned) -- the settings of
+//                  other controllers in an existing file are kept
+//    and --games, --gamesDir, --levels, --seeds, --threads, --maxTicks as for Tournament
+
+package Harness;
+
+// import needed for the settings we tune
+import Common.Config;
+// import needed for dealing with some java functionality
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+public class Autotuner {
+
+	// one tunable setting, and the values we try for it
+	static class Setting {
+		final String key;
+		final double min, max;
+		final boolean whole;
+		// try values evenly on a log scale (for settings where 0.1 vs 0.2 matters as much as 1 vs 2)
+		final boolean log;
+		// if set, the value may be at most this (other) setting's value plus 'boundOffset'
+		final String bound;
+		final int boundOffset;
+
+		Setting(String key, double min, double max, boolean whole, boolean log, String bound, int boundOffset) {
+			this.key = key;
+			this.min = min;
+			this.max = max;
+			this.whole = whole;
+			this.log = log;
+			this.bound = bound;
+			this.boundOffset = boundOffset;
+		}
+
+		static Setting whole(String key, int min, int max) { return new Setting(key, min, max, true, false, null, 0); }
+		static Setting number(String key, double min, double max) { return new Setting(key, min, max, false, true, null, 0); }
+		static Setting below(String key, int min, int max, String bound, int boundOffset) { return new Setting(key, min, max, true, false, bound, boundOffset); }
+
+		// a random value (no more than 'limit')
+		Object sample(Random rng, double limit) {
+			double hi = Math.max(min, Math.min(max, limit));
+			if (whole) return (int) min + rng.nextInt((int) hi - (int) min + 1);
+			double v = log ? Math.exp(Math.log(min) + rng.nextDouble() * (Math.log(hi) - Math.log(min))) : min + rng.nextDouble() * (hi - min);
+			return Double.parseDouble(String.format(Locale.ROOT, "%.3g", v));
+		}
+	}
+
+	// what we tune of every controller
+	static final HashMap<String, Setting[]> SETTINGS = new HashMap<String, Setting[]>();
+	static {
+		SETTINGS.put("Algore", new Setting[] {
+			Setting.whole("Algore.popSize", 3, 16),
+			Setting.below("Algore.muSize", 2, 8, "Algore.popSize", -1),
+			Setting.whole("Algore.noGenerations", 1, 10),
+			Setting.number("Algore.mutateStep", 0.1, 4)
+		});
+		SETTINGS.put("Eevee", new Setting[] {
+			Setting.whole("Eevee.populationSize", 2, 20),
+			Setting.below("Eevee.muSize", 1, 10, "Eevee.populationSize", 0),
+			Setting.whole("Eevee.totalGenerations", 2, 100)
+		});
+		SETTINGS.put("Savague", new Setting[] {
+			Setting.whole("Savague.expansionDepth", 2, 50),
+			Setting.number("Savague.uctWeight", 0.01, 2)
+		});
+	}
+
+	// one candidate, and how it did in the games it played so far
+	static class Candidate {
+		final Config config;
+		int played, wins;
+		double totalScore;
+
+		Candidate(Config config) { this.config = config; }
+
+		double winRate() { return (played == 0) ? 0 : (double) wins / played; }
+		double meanScore() { return (played == 0) ? 0 : totalScore / played; }
+
+		public String toString() {
+			return String.format(Locale.ROOT, "won %d of %d, mean score %.2f: %s", wins, played, meanScore(),
+					config.toString().isEmpty() ? "(defaults)" : config.toString());
+		}
+	}
+
+	// best first: most wins, then the highest score
+	static final Comparator<Candidate> BEST_FIRST = new Comparator<Candidate>() {
+		public int compare(Candidate a, Candidate b) {
+			int c = Double.compare(b.winRate(), a.winRate());
+			return (c != 0) ? c : Double.compare(b.meanScore(), a.meanScore());
+		}
+	};
+
+	final Tournament tournament;
+	final int maxTicks;
+
+	public Autotuner(GameSource games, int threads, int maxTicks) {
+		this.tournament = new Tournament(games, threads);
+		this.maxTicks = maxTicks;
+	}
+
+	// 'count' candidates for 'agent': the defaults first, then random settings
+	public static List<Candidate> candidates(String agent, int count, Random rng) {
+		Setting[] settings = SETTINGS.get(agent);
+		if (settings == null) throw new IllegalArgumentException("Do not know how to tune '" + agent + "', only " + SETTINGS.keySet());
+		List<Candidate> candidates = new ArrayList<Candidate>();
+		candidates.add(new Candidate(new Config()));
+		while (candidates.size() < count) {
+			Config config = new Config();
+			for (Setting s : settings) {
+				double limit = (s.bound == null) ? s.max : config.getInt(s.bound, (int) s.max) + s.boundOffset;
+				config = config.with(s.key, s.sample(rng, limit));
+			}
+			candidates.add(new Candidate(config));
+		}
+		return candidates;
+	}
+
+	// find the best of 'candidates' for 'agent' on 'game', by successive halving over the games 'levels' x 'seeds'
+	public Candidate tune(String agent, String game, int[] levels, long[] seeds, List<Candidate> candidates, Random rng) throws InterruptedException {
+		// every game we can play, in random order (each round plays the next ones)
+		List<long[]> instances = new ArrayList<long[]>();
+		for (int level : levels)
+			for (long seed : seeds)
+				instances.add(new long[] { level, seed });
+		Collections.shuffle(instances, rng);
+
+		// start small enough that (doubling every round) the last round plays every game
+		int rounds = 0;
+		while ((1 << rounds) < candidates.size()) rounds++;
+		int games = Math.max(1, instances.size() >> Math.max(0, rounds - 1));
+		int played = 0;
+		List<Candidate> alive = new ArrayList<Candidate>(candidates);
+		for (int round = 1; alive.size() > 1; round++) {
+			// every candidate that is still in plays the games it has not played yet
+			int upTo = Math.min(instances.size(), games);
+			List<Match> matches = new ArrayList<Match>();
+			HashMap<Match, Candidate> playedBy = new HashMap<Match, Candidate>();
+			for (Candidate c : alive) {
+				for (int i = played; i < upTo; i++) {
+					Match m = new Match(agent, game, (int) instances.get(i)[0], instances.get(i)[1], maxTicks);
+					m.config = c.config;
+					matches.add(m);
+					playedBy.put(m, c);
+				}
+			}
+			tournament.run(matches, null);
+			for (Match m : matches) {
+				Candidate c = playedBy.get(m);
+				c.played++;
+				if (m.result.equals("win")) c.wins++;
+				c.totalScore += m.score;
+				if (m.error != null) System.err.println("  " + agent + " failed on " + game + " with " + c.config + ": " + m.error);
+			}
+			played = upTo;
+
+			// keep the better half
+			Collections.sort(alive, BEST_FIRST);
+			System.err.println(String.format(Locale.ROOT, "%s round %d: %d candidates, %d games each -- best %s",
+					game, round, alive.size(), played, alive.get(0)));
+			alive = new ArrayList<Candidate>(alive.subList(0, (alive.size() + 1) / 2));
+			games *= 2;
+		}
+		return alive.get(0);
+	}
+
+	public static void main(String[] args) throws Exception {
+		HashMap<String, String> options = Tournament.parseOptions(args);
+		String agent = options.getOrDefault("agent", "Savague");
+		String[] gameNames = options.getOrDefault("games", "synthetic").split(",");
+		File gamesDir = new File(options.getOrDefault("gamesDir", "examples/gridphysics"));
+		int[] levels = Tournament.toInts(Tournament.parseRange(options.getOrDefault("levels", "0-4")));
+		long[] seeds = Tournament.parseRange(options.getOrDefault("seeds", "1-4"));
+		int threads = Integer.parseInt(options.getOrDefault("threads", "" + Runtime.getRuntime().availableProcessors()));
+		int maxTicks = Integer.parseInt(options.getOrDefault("maxTicks", "2000"));
+		int count = Integer.parseInt(options.getOrDefault("candidates", "16"));
+		Random rng = new Random(Long.parseLong(options.getOrDefault("tunerSeed", "1")));
+		File out = new File(options.getOrDefault("out", "tuned"));
+		out.mkdirs();
+
+		GameSource source = Tournament.allSynthetic(gameNames) ? new SyntheticGames() : GameSource.create(gamesDir);
+		Autotuner tuner = new Autotuner(source, threads, maxTicks);
+		System.err.println("Tuning " + agent + " on " + gameNames.length + " " + source.name() + " games, "
+				+ count + " candidates, " + threads + " threads");
+		for (String game : gameNames) {
+			Candidate best = tuner.tune(agent, game, levels, seeds, candidates(agent, count, rng), rng);
+			// keep the settings of the other controllers that are already in the file
+			// (if the defaults won, nothing is written for this one)
+			File file = new File(out, Tournament.fileName(game) + ".properties");
+			Config config = file.exists() ? Config.load(file).without(agent + ".").with(best.config) : best.config;
+			config.store(file, "Autotuner: " + agent + " on " + game + " " + best);
+			System.out.println(game + ": " + best + " -> " + file);
+		}
+	}
+}
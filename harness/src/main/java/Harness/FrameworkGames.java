@@ -0,0 +1,118 @@
+/*********************************************************************
+** Code written by Wells Lucas Santo
+** This code was written as part of the CS9223 course at NYU.
+** If you wish to reproduce this code in any way, please give credit.
+**********************************************************************/
+
+// The real GVG-AI games, loaded from the game files with the framework's own parser.
+
+// Games are found the way the framework lays them out: "<gamesDir>/<game>.txt" for the game,
+// and "<gamesDir>/<game>_lvl<level>.txt" for its levels.
+
+// Note: the framework's VGDL factory and registry are singletons, and they are not only used while
+// building a game: a game also creates sprites through the factory, and looks up sprite names in
+// the registry, while it is played. So they must not change while any game is running. That is
+// why prepare() builds the first state of every game the tournament will play -- one at a time,
+// before the worker threads start -- and newGame() only hands out copies of those (a copy has its
+// own forward model, and copying only reads the singletons). The singletons are set up once, and
+// never reset, so the sprite ids of every game we built stay valid.
+// The parser is called through reflection, so that this compiles against the slim framework jar
+// as well.
+
+package Harness;
+
+// basic imports to allow the games to be created
+import core.game.StateObservation;
+// import needed for dealing with some java functionality
+import java.io.File;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
+
+public class FrameworkGames extends GameSource {
+
+	// building a game touches the framework's static registries
+	static final Object BUILD_LOCK = new Object();
+	static boolean initialised = false;
+
+	final File gamesDir;
+	// the first state of every game we built (or why it could not be built), by game, level and seed
+	final HashMap<String, StateObservation> built = new HashMap<String, StateObservation>();
+	final HashMap<String, Exception> failed = new HashMap<String, Exception>();
+
+	public FrameworkGames(File gamesDir) { this.gamesDir = gamesDir; }
+
+	// can we load real games from this directory?
+	public static boolean available(File gamesDir) {
+		if (gamesDir == null || !gamesDir.isDirectory()) return false;
+		try {
+			Class.forName("core.VGDLParser");
+			return true;
+		}
+		catch (ClassNotFoundException e) { return false; }
+	}
+
+	// build every game that 'matches' will play (call this while no game is being played)
+	// -- a game that cannot be built is not tried again, its matches fail when they ask for it
+	public void prepare(List<Match> matches) {
+		for (Match m : matches) {
+			try {
+				firstState(m.game, m.level, m.seed);
+			}
+			catch (Exception e) { }
+		}
+	}
+
+	public StateObservation newGame(String game, int level, long seed) throws Exception {
+		return firstState(game, level, seed).copy();
+	}
+
+	// the first state of a game, built the first time it is asked for
+	StateObservation firstState(String game, int level, long seed) throws Exception {
+		String key = game + "/" + level + "/" + seed;
+		synchronized (BUILD_LOCK) {
+			if (failed.containsKey(key)) throw failed.get(key);
+			StateObservation first = built.get(key);
+			if (first == null) {
+				try {
+					first = build(game, level, seed);
+				}
+				catch (Exception e) {
+					failed.put(key, e);
+					throw e;
+				}
+				built.put(key, first);
+			}
+			return first;
+		}
+	}
+
+	// parse a game and build one of its levels (with BUILD_LOCK held)
+	StateObservation build(String game, int level, long seed) throws Exception {
+		String gameFile = new File(gamesDir, game + ".txt").getPath();
+		String levelFile = new File(gamesDir, game + "_lvl" + level + ".txt").getPath();
+		if (!initialised) {
+			Object factory = Class.forName("core.VGDLFactory").getMethod("GetInstance").invoke(null);
+			factory.getClass().getMethod("init").invoke(factory);
+			Object registry = Class.forName("core.VGDLRegistry").getMethod("GetInstance").invoke(null);
+			registry.getClass().getMethod("init").invoke(registry);
+			initialised = true;
+		}
+
+		Object parser = Class.forName("core.VGDLParser").getDeclaredConstructor().newInstance();
+		Object toPlay = parser.getClass().getMethod("parseGame", String.class).invoke(parser, gameFile);
+		// newer versions of the framework take the seed when building the level, older ones do not
+		try {
+			Method build = toPlay.getClass().getMethod("buildLevel", String.class, int.class);
+			build.invoke(toPlay, levelFile, (int) seed);
+		}
+		catch (NoSuchMethodException e) {
+			toPlay.getClass().getMethod("buildLevel", String.class).invoke(toPlay, levelFile);
+		}
+		// a copy has its own forward model, so it does not depend on 'toPlay' anymore
+		StateObservation first = (StateObservation) toPlay.getClass().getMethod("getObservation").invoke(toPlay);
+		return first.copy();
+	}
+
+	public String name() { return "gvgai"; }
+}
@@ -0,0 +1,55 @@
+/*********************************************************************
+** Code written by Wells Lucas Santo
+** This code was written as part of the CS9223 course at NYU.
+** If you wish to reproduce this code in any way, please give credit.
+**********************************************************************/
+
+// A Java Flight Recorder event for one whole game played by the tournament, so that the
+// per-tick gvgai.Act events of the controllers (which share its 'Game Id') can be told apart
+// by game, level and seed.
+
+package Harness;
+
+// imports needed for Java Flight Recorder events
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("gvgai.Game")
+@Label("Tournament game")
+@Category({"GVG-AI", "Tournament"})
+@Description("One game played by the tournament runner")
+@StackTrace(false)
+public class GameEvent extends Event {
+
+	@Label("Agent")
+	public String agent;
+
+	@Label("Game Id")
+	@Description("The id the controller reports in its gvgai.Act events, or 0")
+	public long gameId;
+
+	@Label("Game")
+	public String game;
+
+	@Label("Level")
+	public int level;
+
+	@Label("Seed")
+	public long seed;
+
+	@Label("Result")
+	public String result;
+
+	@Label("Score")
+	public double score;
+
+	@Label("Ticks")
+	public int ticks;
+
+	@Label("Overruns")
+	public int overruns;
+}
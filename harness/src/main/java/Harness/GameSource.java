@@ -0,0 +1,36 @@
+/*********************************************************************
+** Code written by Wells Lucas Santo
+** This code was written as part of the CS9223 course at NYU.
+** If you wish to reproduce this code in any way, please give credit.
+**********************************************************************/
+
+// Where the tournament gets its games from: the real GVG-AI games (when the framework and the
+// game files are around), or synthetic games (when they are not).
+
+package Harness;
+
+// basic imports to allow the games to be created
+import core.game.StateObservation;
+// import needed for dealing with some java functionality
+import java.io.File;
+import java.util.List;
+
+public abstract class GameSource {
+
+	// create the first state of 'game' at 'level', using 'seed' for anything random
+	// every call must give a state that shares nothing (that can change) with any other game
+	public abstract StateObservation newGame(String game, int level, long seed) throws Exception;
+
+	// called with all the matches of a tournament before any of them is played, for sources that
+	// have to do work up front that is not safe to do while games are running
+	public void prepare(List<Match> matches) {}
+
+	public abstract String name();
+
+	// the real games if we can play them, otherwise the synthetic ones
+	public static GameSource create(File gamesDir) {
+		if (FrameworkGames.available(gamesDir)) return new FrameworkGames(gamesDir);
+		System.err.println("GVG-AI games not found in '" + gamesDir + "', playing synthetic games instead");
+		return new SyntheticGames();
+	}
+}
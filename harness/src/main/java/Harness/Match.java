@@ -0,0 +1,150 @@
+/*********************************************************************
+** Code written by Wells Lucas Santo
+** This code was written as part of the CS9223 course at NYU.
+** If you wish to reproduce this code in any way, please give credit.
+**********************************************************************/
+
+// One game of the tournament: one agent playing one level of one game with one seed.
+
+// How it works:
+// The game is played headless, the same way the framework does it: the agent is created with
+// 1 second of setup time, and then every tick gets a copy of the current state and 40 ms to
+// pick an action, which is then applied to the real state. Instead of disqualifying an agent
+// that takes too long, we count the overrun and carry on, so we can see how often it happens.
+// Every match creates its own agent and its own game, so nothing is shared between matches.
+// The agent's random numbers are seeded from the match (see Common.Seeds), so the same match
+// makes the same random choices every time it is played.
+
+package Harness;
+
+// basic imports to allow a game to be played
+import core.game.StateObservation;
+import core.player.AbstractPlayer;
+import tools.ElapsedCpuTimer;
+// import needed for getting Types.ACTIONS and Types.WINNER
+import ontology.Types;
+// import needed for reading how much work the agent did
+import Common.Instrumented;
+import Common.TickStats;
+// import needed for seeding the agent's random numbers
+import Common.Seeds;
+// import needed for giving the agent its settings
+import Common.Config;
+// import needed for dealing with some java functionality
+import java.lang.reflect.Constructor;
+
+public class Match {
+
+	// time limits of the competition
+	public static final long SETUP_MILLIS = 1000;
+	public static final long TICK_MILLIS = 40;
+
+	public final String agent;
+	public final String game;
+	public final int level;
+	public final long seed;
+	public final int maxTicks;
+
+	// filled in by play()
+	public String result = "none";
+	public double score;
+	public int ticks;
+	public long iterations;
+	public int overruns;
+	public double worstTickMillis;
+	public long wallMillis;
+	public String error;
+	// the id the agent reports its ticks under (0 if it does not report any)
+	public long gameId;
+	// if set, every tick is added to it
+	public Recording recording;
+	// if set, the settings the agent is created with (otherwise it reads -Dgvgai.config itself)
+	public Config config;
+
+	public Match(String agent, String game, int level, long seed, int maxTicks) {
+		this.agent = agent;
+		this.game = game;
+		this.level = level;
+		this.seed = seed;
+		this.maxTicks = maxTicks;
+	}
+
+	// play the whole game
+	public Match play(GameSource games) {
+		long wallStart = System.currentTimeMillis();
+		GameEvent event = new GameEvent();
+		event.begin();
+		try {
+			StateObservation state = games.newGame(game, level, seed);
+
+			// every Random the agent creates (on this thread) comes from this match's seed
+			Seeds.seed(Seeds.derive(seed, level, game.hashCode(), agent.hashCode()));
+			ElapsedCpuTimer setupTimer = new ElapsedCpuTimer();
+			setupTimer.setMaxTimeMillis(SETUP_MILLIS);
+			AbstractPlayer player = createAgent(agent, state.copy(), setupTimer, config);
+			if (player instanceof Instrumented) gameId = ((Instrumented) player).tickStats().gameId;
+
+			while (!state.isGameOver() && ticks < maxTicks) {
+				ElapsedCpuTimer tickTimer = new ElapsedCpuTimer();
+				tickTimer.setMaxTimeMillis(TICK_MILLIS);
+				Types.ACTIONS action = player.act(state.copy(), tickTimer);
+				double tickMillis = tickTimer.elapsed() / 1000000.0;
+				if (tickTimer.exceededMaxTime()) overruns++;
+				if (tickMillis > worstTickMillis) worstTickMillis = tickMillis;
+				TickStats stats = (player instanceof Instrumented) ? ((Instrumented) player).tickStats() : null;
+				if (stats != null) iterations += stats.iterations;
+				if (recording != null) recording.add(ticks, state, action, stats);
+				state.advance(action);
+				ticks++;
+			}
+
+			score = state.getGameScore();
+			if (state.getGameWinner() == Types.WINNER.PLAYER_WINS) result = "win";
+			else if (state.getGameWinner() == Types.WINNER.PLAYER_LOSES) result = "loss";
+		}
+		catch (Throwable e) {
+			result = "error";
+			error = e.toString();
+		}
+		finally {
+			Seeds.unseed();
+		}
+		wallMillis = System.currentTimeMillis() - wallStart;
+		if (event.shouldCommit()) {
+			event.agent = agent;
+			event.gameId = gameId;
+			event.game = game;
+			event.level = level;
+			event.seed = seed;
+			event.result = result;
+			event.score = score;
+			event.ticks = ticks;
+			event.overruns = overruns;
+			event.commit();
+		}
+		return this;
+	}
+
+	public double iterationsPerTick() { return (ticks == 0) ? 0 : (double) iterations / ticks; }
+
+	// create '<agent>.Agent' -- any controller with the framework's usual constructor will do
+	public static AbstractPlayer createAgent(String agent, StateObservation state, ElapsedCpuTimer timer) throws Exception {
+		return createAgent(agent, state, timer, null);
+	}
+
+	// the same, but with 'config' if it is set (and the controller takes settings)
+	public static AbstractPlayer createAgent(String agent, StateObservation state, ElapsedCpuTimer timer, Config config) throws Exception {
+		Class<?> agentClass = Class.forName(agent.contains(".") ? agent : agent + ".Agent");
+		if (config != null) {
+			try {
+				Constructor<?> constructor = agentClass.getConstructor(StateObservation.class, ElapsedCpuTimer.class, Config.class);
+				return (AbstractPlayer) constructor.newInstance(state, timer, config);
+			}
+			catch (NoSuchMethodException e) {
+				// a controller without settings
+			}
+		}
+		Constructor<?> constructor = agentClass.getConstructor(StateObservation.class, ElapsedCpuTimer.class);
+		return (AbstractPlayer) constructor.newInstance(state, timer);
+	}
+}
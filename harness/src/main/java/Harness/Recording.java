@@ -0,0 +1,150 @@
+/*********************************************************************
+** Code written by Wells Lucas Santo
+** This code was written as part of the CS9223 course at NYU.
+** If you wish to reproduce this code in any way, please give credit.
+**********************************************************************/
+
+// A record of one game, tick by tick: which state the agent was shown (as a fingerprint),
+// which action it picked, and how much work it did for it. Written by the tournament runner
+// (--record), and checked again by Replay.
+
+// The file is plain text: a few '# key=value' lines that say what was played (and with which settings,
+// as '# config.<setting>=value' lines), then one line per tick:
+//    <tick> <state fingerprint> <action> <iterations> <copies> <advances>
+
+package Harness;
+
+// basic imports to allow the states to be recorded
+import core.game.StateObservation;
+// import needed for getting Types.ACTIONS
+import ontology.Types;
+// import needed for fingerprinting states and reading how much work the agent did
+import Common.StateCache;
+import Common.TickStats;
+// import needed for remembering the settings the agent played with
+import Common.Config;
+// import needed for dealing with some java functionality
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class Recording {
+
+	public static class Tick {
+		public final int tick;
+		public final long fingerprint;
+		public final String action;
+		public final long iterations, copies, advances;
+
+		public Tick(int tick, long fingerprint, String action, long iterations, long copies, long advances) {
+			this.tick = tick;
+			this.fingerprint = fingerprint;
+			this.action = action;
+			this.iterations = iterations;
+			this.copies = copies;
+			this.advances = advances;
+		}
+
+		public String toString() {
+			return tick + " " + Long.toHexString(fingerprint) + " " + action + " " + iterations + " " + copies + " " + advances;
+		}
+	}
+
+	// the settings of the agent are kept as 'config.<setting>'
+	static final String CONFIG = "config.";
+
+	// what was played: agent, game, level, seed, maxTicks, gamesDir, the iterations per tick of the
+	// deterministic mode (0 if the agent played by the clock), and the agent's settings ('config.*')
+	public final LinkedHashMap<String, String> settings = new LinkedHashMap<String, String>();
+	public final ArrayList<Tick> ticks = new ArrayList<Tick>();
+
+	// an empty recording for 'match'
+	public Recording(Match match, String gamesDir, long fixedIterations) {
+		settings.put("agent", match.agent);
+		settings.put("game", match.game);
+		settings.put("level", "" + match.level);
+		settings.put("seed", "" + match.seed);
+		settings.put("maxTicks", "" + match.maxTicks);
+		settings.put("gamesDir", gamesDir);
+		settings.put("iterations", "" + fixedIterations);
+		// the settings the agent really plays with: the match's own, or else the ones it reads itself
+		Config config = (match.config != null) ? match.config : Config.fromSystem();
+		for (String key : config.keys()) settings.put(CONFIG + key, config.get(key));
+	}
+
+	Recording() {}
+
+	// the agent was shown 'state', and answered with 'action' (stats may be null)
+	public void add(int tick, StateObservation state, Types.ACTIONS action, TickStats stats) {
+		ticks.add(new Tick(tick, StateCache.fingerprint(state), action.toString(),
+				(stats == null) ? 0 : stats.iterations, (stats == null) ? 0 : stats.copies, (stats == null) ? 0 : stats.advances));
+	}
+
+	// a match that plays the recorded game again, with the recorded settings (and no others)
+	public Match match() {
+		Match match = new Match(settings.get("agent"), settings.get("game"), Integer.parseInt(settings.get("level")),
+				Long.parseLong(settings.get("seed")), Integer.parseInt(settings.get("maxTicks")));
+		match.config = config();
+		return match;
+	}
+
+	// the settings the agent played with
+	public Config config() {
+		Config config = new Config();
+		for (Map.Entry<String, String> s : settings.entrySet())
+			if (s.getKey().startsWith(CONFIG)) config = config.with(s.getKey().substring(CONFIG.length()), s.getValue());
+		return config;
+	}
+
+	public long fixedIterations() { return Long.parseLong(settings.get("iterations")); }
+
+	// where the first difference between this recording and 'replayed' is (null if there is none)
+	public String firstDrift(Recording replayed) {
+		int n = Math.min(ticks.size(), replayed.ticks.size());
+		for (int i = 0; i < n; i++) {
+			Tick expected = ticks.get(i), got = replayed.ticks.get(i);
+			String what = (expected.fingerprint != got.fingerprint) ? "state"
+					: !expected.action.equals(got.action) ? "action"
+					: (expected.iterations != got.iterations) ? "iterations"
+					: (expected.copies != got.copies) ? "copies"
+					: (expected.advances != got.advances) ? "advances"
+					: null;
+			if (what != null) return what + " drifted at tick " + expected.tick + ": expected [" + expected + "], got [" + got + "]";
+		}
+		if (ticks.size() != replayed.ticks.size())
+			return "game length drifted: expected " + ticks.size() + " ticks, got " + replayed.ticks.size();
+		return null;
+	}
+
+	public void write(File file) throws IOException {
+		try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
+			for (Map.Entry<String, String> s : settings.entrySet()) out.println("# " + s.getKey() + "=" + s.getValue());
+			for (Tick t : ticks) out.println(t);
+		}
+	}
+
+	public static Recording read(File file) throws IOException {
+		Recording recording = new Recording();
+		try (BufferedReader in = new BufferedReader(new FileReader(file))) {
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (line.isEmpty()) continue;
+				if (line.startsWith("# ")) {
+					int eq = line.indexOf('=');
+					recording.settings.put(line.substring(2, eq), line.substring(eq + 1));
+					continue;
+				}
+				String[] f = line.split(" ");
+				recording.ticks.add(new Tick(Integer.parseInt(f[0]), Long.parseUnsignedLong(f[1], 16), f[2],
+						Long.parseLong(f[3]), Long.parseLong(f[4]), Long.parseLong(f[5])));
+			}
+		}
+		return recording;
+	}
+}
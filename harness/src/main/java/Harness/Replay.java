@@ -0,0 +1,62 @@
+/*********************************************************************
+** Code written by Wells Lucas Santo
+** This code was written as part of the CS9223 course at NYU.
+** If you wish to reproduce this code in any way, please give credit.
+**********************************************************************/
+
+// Plays recorded games again, and fails if anything drifts: the states the agent is shown, the
+// actions it picks, or how much work it does for them.
+
+// This is how we make sure an optimization does not change what the controllers do: record some
+// games before the change, and replay them after it. The recordings have to be made in the
+// deterministic mode (-Dgvgai.iterations=N), because otherwise the amount of work per tick
+// depends on how fast the machine was -- Replay plays them again in that same mode.
+
+// Usage:
+//    java -Dgvgai.iterations=20 -cp ... Harness.Tournament --games synthetic --seeds 1-3 --record before/
+//    ... change the code ...
+//    java -cp ... Harness.Replay before/*.replay
+
+package Harness;
+
+// import needed for dealing with some java functionality
+import java.io.File;
+
+public class Replay {
+
+	// play the game of 'recording' again, and say where it drifted (null if it did not)
+	public static String check(Recording recording) {
+		long iterations = recording.fixedIterations();
+		if (iterations <= 0) return "was not recorded in the deterministic mode (-Dgvgai.iterations), so it cannot be replayed";
+		System.setProperty("gvgai.iterations", "" + iterations);
+
+		String game = recording.settings.get("game");
+		GameSource games = game.startsWith("synthetic") ? new SyntheticGames() : GameSource.create(new File(recording.settings.get("gamesDir")));
+		Match match = recording.match();
+		match.recording = new Recording(match, recording.settings.get("gamesDir"), iterations);
+		match.play(games);
+		if (match.error != null) return "failed: " + match.error;
+		return recording.firstDrift(match.recording);
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length == 0) {
+			System.err.println("Usage: Harness.Replay <recording.replay>...");
+			System.exit(1);
+		}
+		int drifted = 0;
+		for (String file : args) {
+			Recording recording = Recording.read(new File(file));
+			String drift = check(recording);
+			if (drift == null) System.out.println("OK     " + file + " (" + recording.ticks.size() + " ticks)");
+			else {
+				System.out.println("DRIFT  " + file + ": " + drift);
+				drifted++;
+			}
+		}
+		if (drifted > 0) {
+			System.out.println(drifted + " of " + args.length + " games drifted");
+			System.exit(1);
+		}
+	}
+}
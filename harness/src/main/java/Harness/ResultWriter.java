@@ -0,0 +1,67 @@
+/*********************************************************************
+** Code written by Wells Lucas Santo
+** This code was written as part of the CS9223 course at NYU.
+** If you wish to reproduce this code in any way, please give credit.
+**********************************************************************/
+
+// Streams the results of finished matches to a file (or stdout), one line per match, as either
+// CSV or JSON lines. Lines are flushed as soon as they are written, so a long tournament can be
+// watched (or stopped) while it runs.
+
+package Harness;
+
+// import needed for dealing with some java functionality
+import java.io.PrintWriter;
+import java.util.Locale;
+
+public class ResultWriter {
+
+	final PrintWriter out;
+	final boolean json;
+
+	public ResultWriter(PrintWriter out, boolean json) {
+		this.out = out;
+		this.json = json;
+		if (!json) {
+			out.println("agent,game,level,seed,result,score,ticks,iterationsPerTick,overruns,worstTickMillis,wallMillis,error");
+			out.flush();
+		}
+	}
+
+	// called from every worker thread as its matches finish
+	public synchronized void write(Match m) {
+		if (json) {
+			out.println(String.format(Locale.ROOT,
+					"{\"agent\":%s,\"game\":%s,\"level\":%d,\"seed\":%d,\"result\":%s,\"score\":%s,\"ticks\":%d,"
+					+ "\"iterationsPerTick\":%.2f,\"overruns\":%d,\"worstTickMillis\":%.2f,\"wallMillis\":%d,\"error\":%s}",
+					quote(m.agent), quote(m.game), m.level, m.seed, quote(m.result), m.score, m.ticks,
+					m.iterationsPerTick(), m.overruns, m.worstTickMillis, m.wallMillis,
+					(m.error == null) ? "null" : quote(m.error)));
+		}
+		else {
+			out.println(String.format(Locale.ROOT, "%s,%s,%d,%d,%s,%s,%d,%.2f,%d,%.2f,%d,%s",
+					csv(m.agent), csv(m.game), m.level, m.seed, m.result, m.score, m.ticks,
+					m.iterationsPerTick(), m.overruns, m.worstTickMillis, m.wallMillis,
+					(m.error == null) ? "" : csv(m.error)));
+		}
+		out.flush();
+	}
+
+	public synchronized void close() { out.close(); }
+
+	static String quote(String s) {
+		StringBuilder b = new StringBuilder("\"");
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c == '"' || c == '\\') b.append('\\').append(c);
+			else if (c < 0x20) b.append(String.format("\\u%04x", (int) c));
+			else b.append(c);
+		}
+		return b.append('"').toString();
+	}
+
+	static String csv(String s) {
+		if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0) return s;
+		return "\"" + s.replace("\"", "\"\"") + "\"";
+	}
+}
@@ -0,0 +1,354 @@
+/*********************************************************************
+** Code written by Wells Lucas Santo
+** This code was written as part of the CS9223 course at NYU.
+** If you wish to reproduce this code in any way, please give credit.
+**********************************************************************/
+
+// A deterministic, synthetic stand-in for a StateObservation, so that the controllers can be
+// benchmarked (and played) without any game files.
+
+// How it works:
+// The 'game' is a rectangular grid with walls around the border (and a few inside), an avatar,
+// and a configurable number of NPCs, resources, portals and movable sprites. Every advance()
+// moves the avatar one cell (walls block it), moves every NPC one random cell, and then:
+// picking up a resource is +1 score, touching an NPC loses the game, and reaching a portal
+// wins it. The game is also lost once 'maxTicks' is reached.
+// advance() can be made artificially slow by spinning for 'advanceNanos', which lets us pretend
+// to be a game with an expensive forward model.
+
+// Everything random comes from a small generator whose state is copied along with the state,
+// so the same seed and the same actions always give the same game. The get*Positions() calls
+// group sprites by type and sort them by distance, just like the real framework does, so a
+// controller pays the same kind of cost here as it does in a real game.
+
+package Harness;
+
+// basic imports to allow the stand-in to work
+import core.game.Event;
+import core.game.Observation;
+import core.game.StateObservation;
+// import needed for getting Types.ACTIONS, Types.WINNER and the sprite categories
+import ontology.Types;
+// import needed for dealing with locations on the grid
+import tools.Vector2d;
+// import needed for dealing with some java functionality
+import java.awt.Dimension;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.TreeSet;
+
+public class SyntheticState extends StateObservation {
+
+	// everything that describes a synthetic game -- change the fields, then hand it to the constructor
+	public static class Config {
+		public int width = 20;
+		public int height = 12;
+		public int blockSize = 30;
+		public int npcs = 4;
+		public int npcTypes = 2;
+		public int resources = 6;
+		public int portals = 1;
+		public int movables = 3;
+		public int innerWalls = 10;
+		// how many actions the avatar has (1 to 5: LEFT, RIGHT, DOWN, UP, USE)
+		public int actions = 5;
+		// how long every advance() should take at least, to pretend the forward model is expensive
+		public long advanceNanos = 0;
+		public int maxTicks = 500;
+		public long seed = 42;
+
+		public Config copy() {
+			Config c = new Config();
+			c.width = width; c.height = height; c.blockSize = blockSize;
+			c.npcs = npcs; c.npcTypes = npcTypes; c.resources = resources;
+			c.portals = portals; c.movables = movables; c.innerWalls = innerWalls;
+			c.actions = actions; c.advanceNanos = advanceNanos;
+			c.maxTicks = maxTicks; c.seed = seed;
+			return c;
+		}
+	}
+
+	static final Types.ACTIONS[] ALL_ACTIONS = { Types.ACTIONS.ACTION_LEFT, Types.ACTIONS.ACTION_RIGHT,
+			Types.ACTIONS.ACTION_DOWN, Types.ACTIONS.ACTION_UP, Types.ACTIONS.ACTION_USE };
+
+	// itypes of the sprites we create (NPCs use NPC_ITYPE, NPC_ITYPE + 1, ...)
+	static final int AVATAR_ITYPE = 1, WALL_ITYPE = 2, RESOURCE_ITYPE = 3, PORTAL_ITYPE = 4, MOVABLE_ITYPE = 5, NPC_ITYPE = 6;
+
+	final Config config;
+	final ArrayList<Types.ACTIONS> actions;
+	// walls never move, so all copies can share them
+	final boolean[][] wall;
+	final ArrayList<Observation> walls;
+
+	// these change with every advance()
+	ArrayList<Observation> sprites;
+	Observation avatar;
+	Vector2d orientation;
+	double score;
+	int tick;
+	Types.WINNER winner;
+	long rngState;
+
+	// the observation grid is only rebuilt when someone asks for it after the state changed
+	ArrayList<Observation>[][] grid;
+	boolean gridDirty = true;
+
+	// create the first state of a new synthetic game
+	public SyntheticState(Config config) {
+		super(null);
+		this.config = config.copy();
+		rngState = config.seed;
+
+		actions = new ArrayList<Types.ACTIONS>();
+		for (int i = 0; i < Math.max(1, Math.min(config.actions, ALL_ACTIONS.length)); i++) actions.add(ALL_ACTIONS[i]);
+
+		// walls around the border, plus a few inside
+		wall = new boolean[config.width][config.height];
+		walls = new ArrayList<Observation>();
+		sprites = new ArrayList<Observation>();
+		int id = 0;
+		for (int x = 0; x < config.width; x++) {
+			for (int y = 0; y < config.height; y++) {
+				if (x == 0 || y == 0 || x == config.width - 1 || y == config.height - 1) {
+					wall[x][y] = true;
+					walls.add(sprite(WALL_ITYPE, id++, x, y, Types.TYPE_STATIC));
+				}
+			}
+		}
+		for (int i = 0; i < config.innerWalls; i++) {
+			int[] cell = freeCell();
+			wall[cell[0]][cell[1]] = true;
+			walls.add(sprite(WALL_ITYPE, id++, cell[0], cell[1], Types.TYPE_STATIC));
+		}
+
+		int[] start = freeCell();
+		avatar = sprite(AVATAR_ITYPE, id++, start[0], start[1], Types.TYPE_AVATAR);
+		sprites.add(avatar);
+		for (int i = 0; i < config.npcs; i++) {
+			int[] cell = freeCell();
+			sprites.add(sprite(NPC_ITYPE + i % Math.max(1, config.npcTypes), id++, cell[0], cell[1], Types.TYPE_NPC));
+		}
+		for (int i = 0; i < config.resources; i++) {
+			int[] cell = freeCell();
+			sprites.add(sprite(RESOURCE_ITYPE, id++, cell[0], cell[1], Types.TYPE_RESOURCE));
+		}
+		for (int i = 0; i < config.portals; i++) {
+			int[] cell = freeCell();
+			sprites.add(sprite(PORTAL_ITYPE, id++, cell[0], cell[1], Types.TYPE_PORTAL));
+		}
+		for (int i = 0; i < config.movables; i++) {
+			int[] cell = freeCell();
+			sprites.add(sprite(MOVABLE_ITYPE, id++, cell[0], cell[1], Types.TYPE_MOVABLE));
+		}
+
+		orientation = new Vector2d(1, 0);
+		score = 0;
+		tick = 0;
+		winner = Types.WINNER.NO_WINNER;
+	}
+
+	// create a copy of 'other' (walls and actions are shared, everything else is deep copied)
+	SyntheticState(SyntheticState other) {
+		super(null);
+		config = other.config;
+		actions = other.actions;
+		wall = other.wall;
+		walls = other.walls;
+		sprites = new ArrayList<Observation>(other.sprites.size());
+		for (int i = 0; i < other.sprites.size(); i++) {
+			Observation o = other.sprites.get(i);
+			Observation c = new Observation(o.itype, o.obsID, o.position.copy(), o.reference, o.category);
+			sprites.add(c);
+			if (o == other.avatar) avatar = c;
+		}
+		orientation = other.orientation.copy();
+		score = other.score;
+		tick = other.tick;
+		winner = other.winner;
+		rngState = other.rngState;
+	}
+
+	public Config getConfig() { return config.copy(); }
+
+	@Override
+	public StateObservation copy() { return new SyntheticState(this); }
+
+	@Override
+	public void advance(Types.ACTIONS action) {
+		if (isGameOver()) return;
+		long spinUntil = System.nanoTime() + config.advanceNanos;
+
+		// move the avatar (walls block it)
+		int dx = 0, dy = 0;
+		if (action == Types.ACTIONS.ACTION_LEFT) dx = -1;
+		else if (action == Types.ACTIONS.ACTION_RIGHT) dx = 1;
+		else if (action == Types.ACTIONS.ACTION_UP) dy = -1;
+		else if (action == Types.ACTIONS.ACTION_DOWN) dy = 1;
+		if (dx != 0 || dy != 0) {
+			orientation = new Vector2d(dx, dy);
+			moveIfFree(avatar, dx, dy);
+		}
+
+		// move every NPC one random step
+		for (int i = 0; i < sprites.size(); i++) {
+			Observation o = sprites.get(i);
+			if (o.category != Types.TYPE_NPC) continue;
+			int dir = nextInt(4);
+			moveIfFree(o, (dir == 0) ? -1 : (dir == 1) ? 1 : 0, (dir == 2) ? -1 : (dir == 3) ? 1 : 0);
+		}
+
+		// see what the avatar ran into
+		int ax = cellX(avatar), ay = cellY(avatar);
+		for (int i = sprites.size() - 1; i >= 0; i--) {
+			Observation o = sprites.get(i);
+			if (o == avatar || cellX(o) != ax || cellY(o) != ay) continue;
+			if (o.category == Types.TYPE_RESOURCE) {
+				score += 1;
+				sprites.remove(i);
+			}
+			else if (o.category == Types.TYPE_NPC) winner = Types.WINNER.PLAYER_LOSES;
+			else if (o.category == Types.TYPE_PORTAL && winner == Types.WINNER.NO_WINNER) winner = Types.WINNER.PLAYER_WINS;
+		}
+
+		tick++;
+		if (tick >= config.maxTicks && winner == Types.WINNER.NO_WINNER) winner = Types.WINNER.PLAYER_LOSES;
+		gridDirty = true;
+
+		// pretend to be an expensive forward model
+		while (System.nanoTime() < spinUntil) { }
+	}
+
+	@Override public ArrayList<Types.ACTIONS> getAvailableActions() { return isGameOver() ? new ArrayList<Types.ACTIONS>() : actions; }
+	@Override public ArrayList<Types.ACTIONS> getAvailableActions(boolean includeNIL) { return getAvailableActions(); }
+	@Override public double getGameScore() { return score; }
+	@Override public int getGameTick() { return tick; }
+	@Override public Types.WINNER getGameWinner() { return winner; }
+	@Override public boolean isGameOver() { return winner != Types.WINNER.NO_WINNER; }
+	@Override public Dimension getWorldDimension() { return new Dimension(config.width * config.blockSize, config.height * config.blockSize); }
+	@Override public int getBlockSize() { return config.blockSize; }
+	@Override public Vector2d getAvatarPosition() { return avatar.position.copy(); }
+	@Override public double getAvatarSpeed() { return 1; }
+	@Override public Vector2d getAvatarOrientation() { return orientation.copy(); }
+	@Override public HashMap<Integer, Integer> getAvatarResources() { return new HashMap<Integer, Integer>(); }
+	@Override public TreeSet<Event> getEventsHistory() { return new TreeSet<Event>(); }
+
+	@Override
+	public ArrayList<Observation>[][] getObservationGrid() {
+		if (grid == null) {
+			grid = newGrid();
+			gridDirty = true;
+		}
+		if (gridDirty) {
+			for (int x = 0; x < config.width; x++)
+				for (int y = 0; y < config.height; y++) grid[x][y].clear();
+			for (int i = 0; i < walls.size(); i++) addToGrid(walls.get(i));
+			for (int i = 0; i < sprites.size(); i++) addToGrid(sprites.get(i));
+			gridDirty = false;
+		}
+		return grid;
+	}
+
+	@Override public ArrayList<Observation>[] getNPCPositions() { return positions(Types.TYPE_NPC, null); }
+	@Override public ArrayList<Observation>[] getNPCPositions(Vector2d reference) { return positions(Types.TYPE_NPC, reference); }
+	@Override public ArrayList<Observation>[] getImmovablePositions() { return positions(Types.TYPE_STATIC, null); }
+	@Override public ArrayList<Observation>[] getImmovablePositions(Vector2d reference) { return positions(Types.TYPE_STATIC, reference); }
+	@Override public ArrayList<Observation>[] getMovablePositions() { return positions(Types.TYPE_MOVABLE, null); }
+	@Override public ArrayList<Observation>[] getMovablePositions(Vector2d reference) { return positions(Types.TYPE_MOVABLE, reference); }
+	@Override public ArrayList<Observation>[] getResourcesPositions() { return positions(Types.TYPE_RESOURCE, null); }
+	@Override public ArrayList<Observation>[] getResourcesPositions(Vector2d reference) { return positions(Types.TYPE_RESOURCE, reference); }
+	@Override public ArrayList<Observation>[] getPortalsPositions() { return positions(Types.TYPE_PORTAL, null); }
+	@Override public ArrayList<Observation>[] getPortalsPositions(Vector2d reference) { return positions(Types.TYPE_PORTAL, reference); }
+	@Override public ArrayList<Observation>[] getFromAvatarSpritesPositions() { return null; }
+	@Override public ArrayList<Observation>[] getFromAvatarSpritesPositions(Vector2d reference) { return null; }
+
+	// group the sprites of a category by itype (ascending), each group sorted by distance to 'reference'
+	// -- returns null if there are none, like the framework does
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	ArrayList<Observation>[] positions(int category, final Vector2d reference) {
+		ArrayList<Observation> source = (category == Types.TYPE_STATIC) ? walls : sprites;
+		int[] types = new int[4];
+		int noTypes = 0;
+		for (int i = 0; i < source.size(); i++) {
+			Observation o = source.get(i);
+			if (o.category != category) continue;
+			int at = Arrays.binarySearch(types, 0, noTypes, o.itype);
+			if (at >= 0) continue;
+			at = -at - 1;
+			if (noTypes == types.length) types = Arrays.copyOf(types, noTypes * 2);
+			System.arraycopy(types, at, types, at + 1, noTypes - at);
+			types[at] = o.itype;
+			noTypes++;
+		}
+		if (noTypes == 0) return null;
+
+		ArrayList<Observation>[] groups = new ArrayList[noTypes];
+		for (int i = 0; i < noTypes; i++) groups[i] = new ArrayList<Observation>();
+		for (int i = 0; i < source.size(); i++) {
+			Observation o = source.get(i);
+			if (o.category != category) continue;
+			Observation c = new Observation(o.itype, o.obsID, o.position.copy(), reference, o.category);
+			if (reference != null) c.sqDist = c.position.sqDist(reference);
+			groups[Arrays.binarySearch(types, 0, noTypes, o.itype)].add(c);
+		}
+		if (reference != null) {
+			Comparator<Observation> byDistance = new Comparator<Observation>() {
+				public int compare(Observation a, Observation b) { return Double.compare(a.sqDist, b.sqDist); }
+			};
+			for (int i = 0; i < noTypes; i++) Collections.sort(groups[i], byDistance);
+		}
+		return groups;
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	ArrayList<Observation>[][] newGrid() {
+		ArrayList<Observation>[][] g = new ArrayList[config.width][config.height];
+		for (int x = 0; x < config.width; x++)
+			for (int y = 0; y < config.height; y++) g[x][y] = new ArrayList<Observation>();
+		return g;
+	}
+
+	void addToGrid(Observation o) {
+		int x = cellX(o), y = cellY(o);
+		if (x >= 0 && y >= 0 && x < config.width && y < config.height) grid[x][y].add(o);
+	}
+
+	void moveIfFree(Observation o, int dx, int dy) {
+		int x = cellX(o) + dx, y = cellY(o) + dy;
+		if (x < 0 || y < 0 || x >= config.width || y >= config.height || wall[x][y]) return;
+		o.position = new Vector2d(x * config.blockSize, y * config.blockSize);
+	}
+
+	Observation sprite(int itype, int id, int x, int y, int category) {
+		return new Observation(itype, id, new Vector2d(x * config.blockSize, y * config.blockSize), null, category);
+	}
+
+	int cellX(Observation o) { return (int) (o.position.x / config.blockSize); }
+	int cellY(Observation o) { return (int) (o.position.y / config.blockSize); }
+
+	// a random cell that is not a wall and has no sprite in it yet
+	int[] freeCell() {
+		for (int tries = 0; tries < 10000; tries++) {
+			int x = 1 + nextInt(Math.max(1, config.width - 2));
+			int y = 1 + nextInt(Math.max(1, config.height - 2));
+			if (wall[x][y]) continue;
+			boolean taken = false;
+			for (int i = 0; i < sprites.size() && !taken; i++)
+				taken = cellX(sprites.get(i)) == x && cellY(sprites.get(i)) == y;
+			if (!taken) return new int[] { x, y };
+		}
+		throw new IllegalStateException("Synthetic game is too small for this many sprites");
+	}
+
+	// SplitMix64 -- tiny, and its whole state is one long that we can copy along with the game
+	int nextInt(int bound) {
+		rngState += 0x9e3779b97f4a7c15L;
+		long z = rngState;
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		z = z ^ (z >>> 31);
+		return (int) ((z >>> 33) % bound);
+	}
+}
@@ -0,0 +1,143 @@
+/*********************************************************************
+** Code written by Wells Lucas Santo
+** This code was written as part of the CS9223 course at NYU.
+** If you wish to reproduce this code in any way, please give credit.
+**********************************************************************/
+
+// Turns a Java Flight Recorder recording into per-game summaries and histograms of the
+// controllers' gvgai.Act events: how many iterations each tick got, how long act() took,
+// and how much time was left over.
+
+// Usage:
+//    java -XX:StartFlightRecording=filename=run.jfr -cp ... Harness.Tournament ...
+//    java -cp ... Harness.TelemetryReport run.jfr
+
+package Harness;
+
+// imports needed for reading Java Flight Recorder recordings
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+// import needed for dealing with some java functionality
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class TelemetryReport {
+
+	// everything we know about one game (one controller instance)
+	static class GameSummary {
+		String agent;
+		String label = "";
+		int ticks;
+		int overruns;
+		long iterations, copies, advances, treeSize;
+		// iterations per tick: 0, 1, 2-3, 4-7, ... (powers of two)
+		final Histogram iterationsHist = new Histogram("iterations", new double[] { 1, 2, 4, 8, 16, 32, 64, 128, 256, 512, 1024, 2048, 4096, 8192 });
+		// act() duration and time left over, in ms
+		final Histogram durationHist = new Histogram("act ms", new double[] { 5, 10, 20, 30, 35, 38, 39, 40, 42, 45, 50 });
+		final Histogram remainingHist = new Histogram("left ms", new double[] { -2, 0, 0.5, 1, 2, 3, 5, 10, 20 });
+	}
+
+	// counts of values that fall below each bound, plus one bucket for everything above the last one
+	static class Histogram {
+		final String name;
+		final double[] bounds;
+		final long[] counts;
+
+		Histogram(String name, double[] bounds) {
+			this.name = name;
+			this.bounds = bounds;
+			this.counts = new long[bounds.length + 1];
+		}
+
+		void add(double value) {
+			int i = 0;
+			while (i < bounds.length && value >= bounds[i]) i++;
+			counts[i]++;
+		}
+
+		void print(PrintStream out) {
+			long total = 0, most = 1;
+			for (long c : counts) {
+				total += c;
+				most = Math.max(most, c);
+			}
+			out.println("    " + name + ":");
+			for (int i = 0; i < counts.length; i++) {
+				if (counts[i] == 0) continue;
+				String range = (i == 0) ? "< " + fmt(bounds[0])
+						: (i == bounds.length) ? ">= " + fmt(bounds[i - 1])
+						: fmt(bounds[i - 1]) + " - " + fmt(bounds[i]);
+				int bar = (int) Math.round(40.0 * counts[i] / most);
+				out.println(String.format(Locale.ROOT, "      %-14s %7d %5.1f%% %s", range, counts[i],
+						100.0 * counts[i] / total, new String(new char[bar]).replace('\0', '#')));
+			}
+		}
+
+		static String fmt(double v) { return (v == Math.rint(v)) ? String.valueOf((long) v) : String.valueOf(v); }
+	}
+
+	// read every gvgai.Act (and gvgai.Game) event of a recording, grouped by game id
+	public static Map<Long, GameSummary> read(String file) throws IOException {
+		TreeMap<Long, GameSummary> games = new TreeMap<Long, GameSummary>();
+		try (RecordingFile recording = new RecordingFile(Paths.get(file))) {
+			while (recording.hasMoreEvents()) {
+				RecordedEvent e = recording.readEvent();
+				String type = e.getEventType().getName();
+				if (type.equals("gvgai.Act")) {
+					GameSummary g = summary(games, e.getLong("gameId"));
+					g.agent = e.getString("agent");
+					g.ticks++;
+					if (e.getBoolean("overrun")) g.overruns++;
+					long iterations = e.getLong("iterations");
+					g.iterations += iterations;
+					g.copies += e.getLong("copies");
+					g.advances += e.getLong("advances");
+					g.treeSize += e.getLong("treeSize");
+					g.iterationsHist.add(iterations);
+					g.durationHist.add(e.getDuration().toNanos() / 1000000.0);
+					g.remainingHist.add(e.getDouble("remainingMillis"));
+				}
+				else if (type.equals("gvgai.Game") && e.getLong("gameId") != 0) {
+					GameSummary g = summary(games, e.getLong("gameId"));
+					g.label = String.format(Locale.ROOT, "%s level %d seed %d: %s, score %s",
+							e.getString("game"), e.getInt("level"), e.getLong("seed"), e.getString("result"), e.getDouble("score"));
+				}
+			}
+		}
+		return games;
+	}
+
+	static GameSummary summary(Map<Long, GameSummary> games, long gameId) {
+		GameSummary g = games.get(gameId);
+		if (g == null) games.put(gameId, g = new GameSummary());
+		return g;
+	}
+
+	public static void print(Map<Long, GameSummary> games, PrintStream out) {
+		for (Map.Entry<Long, GameSummary> entry : games.entrySet()) {
+			GameSummary g = entry.getValue();
+			if (g.ticks == 0) continue;
+			out.println(String.format(Locale.ROOT, "game %d -- %s %s", entry.getKey(), g.agent, g.label));
+			out.println(String.format(Locale.ROOT,
+					"    ticks %d, overruns %d, per tick: %.1f iterations, %.1f copies, %.1f advances, %.1f tree size",
+					g.ticks, g.overruns, (double) g.iterations / g.ticks, (double) g.copies / g.ticks,
+					(double) g.advances / g.ticks, (double) g.treeSize / g.ticks));
+			g.iterationsHist.print(out);
+			g.durationHist.print(out);
+			g.remainingHist.print(out);
+			out.println();
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 1) {
+			System.err.println("Usage: Harness.TelemetryReport <recording.jfr>");
+			System.exit(1);
+		}
+		print(read(args[0]), System.out);
+	}
+}
@@ -0,0 +1,203 @@
+/*********************************************************************
+** Code written by Wells Lucas Santo
+** This code was written as part of the CS9223 course at NYU.
+** If you wish to reproduce this code in any way, please give credit.
+**********************************************************************/
+
+// A headless tournament runner: plays every combination of games x levels x seeds x agents on a
+// pool of worker threads, and streams one result line per game.
+
+// How it works:
+// Every game is one Match, handed to a fixed pool of worker threads. The threads are reused for
+// the whole tournament, so after the first few games the JIT has warmed up all of the controllers
+// and the games. Every match gets its own copy of the game and its own agent, and none of the
+// controllers keep mutable static state, so games running side by side (or one after another on
+// the same thread) cannot see each other. The real games are built before the pool starts (see
+// FrameworkGames), since building one changes the framework's singletons.
+// If the framework's games are not where we look for them, synthetic games are played instead.
+
+// Usage:
+//    java -cp harness.jar:controllers.jar:lib/gvgai.jar Harness.Tournament \
+//        --agents Algore,Eevee,Savague --games aliens,zelda --levels 0-4 --seeds 1-3 \
+//        --threads 8 --out results.csv
+// Options:
+//    --agents    comma separated controller packages (default: Algore,Eevee,Savague)
+//    --games     comma separated game names (default: synthetic)
+//    --gamesDir  where the game files are (default: examples/gridphysics)
+//    --levels    levels to play, as a list and/or ranges (default: 0-4)
+//    --seeds     seeds to play, as a list and/or ranges (default: 1)
+//    --threads   worker threads (default: one per core)
+//    --maxTicks  stop a game after this many ticks (default: 2000)
+//    --out       file to write to (default: stdout) -- ending in .json or .jsonl writes JSON lines
+//    --format    csv or json, if the file name does not say
+//    --record    directory to write a tick-by-tick recording of every game to (see Replay)
+//    --config    settings for the agents: a properties file, or a directory of '<game>.properties'
+//                files (like the ones Autotuner writes)
+
+package Harness;
+
+// import needed for recording in the same mode the agents play in
+import Common.TimeBudget;
+// import needed for giving the agents their settings
+import Common.Config;
+// import needed for dealing with some java functionality
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class Tournament {
+
+	final GameSource games;
+	final int threads;
+	// if set, every game is recorded into this directory (and where the games came from, for replaying them)
+	File recordDir;
+	String gamesDir = "";
+
+	public Tournament(GameSource games, int threads) {
+		this.games = games;
+		this.threads = threads;
+	}
+
+	// every combination of agent, game, level and seed
+	public static List<Match> schedule(String[] agents, String[] gameNames, int[] levels, long[] seeds, int maxTicks) {
+		List<Match> matches = new ArrayList<Match>();
+		for (String game : gameNames)
+			for (int level : levels)
+				for (long seed : seeds)
+					for (String agent : agents)
+						matches.add(new Match(agent, game, level, seed, maxTicks));
+		return matches;
+	}
+
+	// play all matches, writing each result as soon as it is done (if there is a writer)
+	public void run(List<Match> matches, final ResultWriter writer) throws InterruptedException {
+		games.prepare(matches);
+		ExecutorService pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			final AtomicInteger count = new AtomicInteger();
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "tournament-" + count.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		for (final Match m : matches) {
+			pool.execute(new Runnable() {
+				public void run() {
+					if (recordDir != null) m.recording = new Recording(m, gamesDir, TimeBudget.fixedIterations());
+					m.play(games);
+					if (writer != null) writer.write(m);
+					if (recordDir != null) record(m);
+				}
+			});
+		}
+		pool.shutdown();
+		pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+	}
+
+	// write the recording of a finished match to recordDir
+	void record(Match m) {
+		String name = fileName(m.agent + "_" + m.game + "_" + m.level + "_" + m.seed) + ".replay";
+		try {
+			m.recording.write(new File(recordDir, name));
+		}
+		catch (IOException e) {
+			System.err.println("Could not write " + name + ": " + e);
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		HashMap<String, String> options = parseOptions(args);
+		String[] agents = options.getOrDefault("agents", "Algore,Eevee,Savague").split(",");
+		String[] gameNames = options.getOrDefault("games", "synthetic").split(",");
+		File gamesDir = new File(options.getOrDefault("gamesDir", "examples/gridphysics"));
+		int[] levels = toInts(parseRange(options.getOrDefault("levels", "0-4")));
+		long[] seeds = parseRange(options.getOrDefault("seeds", "1"));
+		int threads = Integer.parseInt(options.getOrDefault("threads", "" + Runtime.getRuntime().availableProcessors()));
+		int maxTicks = Integer.parseInt(options.getOrDefault("maxTicks", "2000"));
+
+		GameSource source = allSynthetic(gameNames) ? new SyntheticGames() : GameSource.create(gamesDir);
+		List<Match> matches = schedule(agents, gameNames, levels, seeds, maxTicks);
+		if (options.containsKey("config")) loadConfigs(matches, new File(options.get("config")));
+		System.err.println("Playing " + matches.size() + " " + source.name() + " games on " + threads + " threads");
+
+		String out = options.get("out");
+		String format = options.getOrDefault("format", (out != null && (out.endsWith(".json") || out.endsWith(".jsonl"))) ? "json" : "csv");
+		ResultWriter writer = new ResultWriter(openOutput(out), format.equals("json"));
+		Tournament tournament = new Tournament(source, threads);
+		if (options.containsKey("record")) {
+			tournament.recordDir = new File(options.get("record"));
+			tournament.recordDir.mkdirs();
+			tournament.gamesDir = gamesDir.getPath();
+		}
+		tournament.run(matches, writer);
+		writer.close();
+	}
+
+	// give every match its settings: from 'file', or from '<game>.properties' if it is a directory
+	static void loadConfigs(List<Match> matches, File file) throws IOException {
+		HashMap<String, Config> configs = new HashMap<String, Config>();
+		for (Match m : matches) {
+			File source = file.isDirectory() ? new File(file, fileName(m.game) + ".properties") : file;
+			if (!source.exists()) continue;
+			if (!configs.containsKey(source.getPath())) configs.put(source.getPath(), Config.load(source));
+			m.config = configs.get(source.getPath());
+		}
+	}
+
+	// 'name' with everything that does not belong in a file name replaced by '_'
+	static String fileName(String name) { return name.replaceAll("[^A-Za-z0-9._=-]", "_"); }
+
+	static boolean allSynthetic(String[] gameNames) {
+		for (String g : gameNames) if (!g.startsWith("synthetic")) return false;
+		return true;
+	}
+
+	static PrintWriter openOutput(String file) throws IOException {
+		if (file == null) return new PrintWriter(new OutputStreamWriter(System.out));
+		return new PrintWriter(new FileWriter(file));
+	}
+
+	// "--key value" pairs
+	static HashMap<String, String> parseOptions(String[] args) {
+		HashMap<String, String> options = new HashMap<String, String>();
+		for (int i = 0; i < args.length; i++) {
+			if (!args[i].startsWith("--") || i + 1 >= args.length)
+				throw new IllegalArgumentException("Expected '--option value', got: " + args[i]);
+			options.put(args[i].substring(2), args[++i]);
+		}
+		return options;
+	}
+
+	// "0-2,5" -> 0, 1, 2, 5
+	static long[] parseRange(String spec) {
+		ArrayList<Long> values = new ArrayList<Long>();
+		for (String part : spec.split(",")) {
+			int dash = part.indexOf('-', 1);
+			if (dash < 0) values.add(Long.parseLong(part.trim()));
+			else {
+				long from = Long.parseLong(part.substring(0, dash).trim());
+				long to = Long.parseLong(part.substring(dash + 1).trim());
+				for (long v = from; v <= to; v++) values.add(v);
+			}
+		}
+		long[] result = new long[values.size()];
+		for (int i = 0; i < result.length; i++) result[i] = values.get(i);
+		return result;
+	}
+
+	static int[] toInts(long[] values) {
+		int[] result = new int[values.length];
+		for (int i = 0; i < values.length; i++) result[i] = (int) values[i];
+		return result;
+	}
+}
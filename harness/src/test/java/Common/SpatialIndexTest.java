@@ -0,0 +1,154 @@
+/*********************************************************************
+** Code written by Wells Lucas Santo
+** This code was written as part of the CS9223 course at NYU.
+** If you wish to reproduce this code in any way, please give credit.
+**********************************************************************/
+
+// Checks the ring search of SpatialIndex against the sorted get*Positions() lists it replaces,
+// on synthetic games played forward with random moves: counts, the closest sprite of a category
+// and of every type in it, and the k closest -- measured from the avatar, and from random points.
+
+package Common;
+
+// basic imports to allow the test to work
+import core.game.Observation;
+import core.game.StateObservation;
+import Harness.SyntheticState;
+// import needed for getting Types.ACTIONS and Types.TYPE_*
+import ontology.Types;
+// import needed for dealing with locations on the grid
+import tools.Vector2d;
+// import needed for dealing with some java functionality
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+// import needed for the test itself
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+public class SpatialIndexTest {
+
+	// the categories that have a get*Positions() list to compare with
+	static final int[] CATEGORIES = { Types.TYPE_NPC, Types.TYPE_STATIC, Types.TYPE_MOVABLE, Types.TYPE_RESOURCE, Types.TYPE_PORTAL };
+	static final double EPSILON = 1e-9;
+	static final int K = 5;
+
+	final SpatialIndex index = new SpatialIndex();
+	final double[] found = new double[K];
+
+	@Test
+	public void matchesPositionListsFromTheAvatar() {
+		for (StateObservation state : states()) {
+			index.build(state);
+			check(state, state.getAvatarPosition());
+		}
+	}
+
+	@Test
+	public void matchesPositionListsFromAnyPoint() {
+		Random rng = new Random(7);
+		for (StateObservation state : states()) {
+			index.build(state);
+			for (int i = 0; i < 4; i++) {
+				// anywhere on the level (or a little outside of it), not only at the centre of a cell
+				double x = (rng.nextDouble() * 1.2 - 0.1) * index.cols() * index.blockSize();
+				double y = (rng.nextDouble() * 1.2 - 0.1) * index.rows() * index.blockSize();
+				index.setReference(x, y);
+				check(state, new Vector2d(x, y));
+			}
+		}
+	}
+
+	@Test
+	public void countsCellsLikeTheGrid() {
+		for (StateObservation state : states()) {
+			index.build(state);
+			ArrayList<Observation>[][] grid = state.getObservationGrid();
+			for (int x = 0; x < grid.length; x++) {
+				for (int y = 0; y < grid[x].length; y++) {
+					int[] expected = new int[SpatialIndex.NUM_CATEGORIES];
+					for (Observation obs : grid[x][y]) expected[obs.category]++;
+					for (int c = 0; c < SpatialIndex.NUM_CATEGORIES; c++)
+						assertEquals("cell " + x + "," + y + " category " + c, expected[c], index.countAt(c, x, y));
+				}
+			}
+			assertEquals(0, index.countAt(Types.TYPE_STATIC, -1, 0));
+			assertEquals(0, index.countAt(Types.TYPE_STATIC, grid.length, 0));
+		}
+	}
+
+	// compare every query of every category with the lists sorted by distance to 'reference'
+	void check(StateObservation state, Vector2d reference) {
+		for (int category : CATEGORIES) {
+			ArrayList<Observation>[] lists = positions(state, category, reference);
+			String what = "tick " + state.getGameTick() + " category " + category + " from " + reference;
+
+			// counts, per category and per type
+			int types = (lists == null) ? 0 : lists.length;
+			assertEquals(what, types, index.types(category));
+			int total = 0;
+			ArrayList<Double> all = new ArrayList<Double>();
+			for (int slot = 0; slot < types; slot++) {
+				assertEquals(what + " slot " + slot, lists[slot].get(0).itype, index.type(category, slot));
+				assertEquals(what + " slot " + slot, lists[slot].size(), index.count(category, slot));
+				total += lists[slot].size();
+				for (Observation obs : lists[slot]) all.add(Math.sqrt(obs.sqDist));
+
+				// the closest (and k closest) of this type -- the list is sorted already
+				assertEquals(what + " slot " + slot, Math.sqrt(lists[slot].get(0).sqDist), index.nearestDistance(category, slot), EPSILON);
+				int n = index.kNearest(category, slot, K, found);
+				assertEquals(what + " slot " + slot, Math.min(K, lists[slot].size()), n);
+				for (int i = 0; i < n; i++)
+					assertEquals(what + " slot " + slot + " #" + i, Math.sqrt(lists[slot].get(i).sqDist), found[i], EPSILON);
+			}
+			assertEquals(what, total, index.count(category));
+
+			// the closest (and k closest) of any type
+			Double[] sorted = all.toArray(new Double[0]);
+			Arrays.sort(sorted);
+			assertEquals(what, (sorted.length == 0) ? -1 : sorted[0], index.nearestDistance(category), EPSILON);
+			int n = index.kNearest(category, K, found);
+			assertEquals(what, Math.min(K, sorted.length), n);
+			for (int i = 0; i < n; i++) assertEquals(what + " #" + i, sorted[i], found[i], EPSILON);
+
+			// a type that is not there
+			assertEquals(what, -1, index.nearestDistance(category, types), EPSILON);
+		}
+	}
+
+	static ArrayList<Observation>[] positions(StateObservation state, int category, Vector2d reference) {
+		switch (category) {
+			case Types.TYPE_NPC: return state.getNPCPositions(reference);
+			case Types.TYPE_STATIC: return state.getImmovablePositions(reference);
+			case Types.TYPE_MOVABLE: return state.getMovablePositions(reference);
+			case Types.TYPE_RESOURCE: return state.getResourcesPositions(reference);
+			case Types.TYPE_PORTAL: return state.getPortalsPositions(reference);
+			default: throw new IllegalArgumentException("no position list for category " + category);
+		}
+	}
+
+	// states of a few differently sized games, each played forward with random moves
+	static ArrayList<StateObservation> states() {
+		ArrayList<StateObservation> states = new ArrayList<StateObservation>();
+		Random rng = new Random(1);
+		for (long seed = 1; seed <= 8; seed++) {
+			SyntheticState.Config config = new SyntheticState.Config();
+			config.seed = seed;
+			config.width = 10 + rng.nextInt(26);
+			config.height = 8 + rng.nextInt(18);
+			config.npcs = rng.nextInt(12);
+			config.npcTypes = 1 + rng.nextInt(3);
+			config.resources = rng.nextInt(10);
+			config.portals = rng.nextInt(3);
+			config.movables = rng.nextInt(6);
+			config.innerWalls = rng.nextInt(12);
+			StateObservation state = new SyntheticState(config);
+			for (int tick = 0; tick < 40 && !state.isGameOver(); tick++) {
+				states.add(state.copy());
+				ArrayList<Types.ACTIONS> actions = state.getAvailableActions();
+				state.advance(actions.get(rng.nextInt(actions.size())));
+			}
+		}
+		return states;
+	}
+}
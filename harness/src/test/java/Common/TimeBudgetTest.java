@@ -0,0 +1,106 @@
+/*********************************************************************
+** Code written by Wells Lucas Santo
+** This code was written as part of the CS9223 course at NYU.
+** If you wish to reproduce this code in any way, please give credit.
+**********************************************************************/
+
+// Checks the planning of TimeBudget: howMany() commits to no more work than its bound on the sum
+// allows (and to no less), and startTick() only halves the estimate that kept work out of a tick.
+
+package Common;
+
+// basic imports to allow the test to work
+import tools.ElapsedCpuTimer;
+// import needed for dealing with some java functionality
+import java.util.Random;
+// import needed for the test itself
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TimeBudgetTest {
+
+	@Test
+	public void howManyKeepsTheSumBound() {
+		Random rng = new Random(3);
+		for (int run = 0; run < 500; run++) {
+			TimeBudget budget = new TimeBudget(0.05, 0);
+			// a cost of 0.05 to 5 ms, which varies by up to half of itself
+			double cost = 50000 + rng.nextDouble() * 5000000;
+			for (int i = 0; i < 1 + rng.nextInt(40); i++)
+				budget.observe(TimeBudget.ADVANCE, (long) (cost * (0.5 + rng.nextDouble())));
+			int wanted = 1 + rng.nextInt(200);
+
+			long before = System.nanoTime();
+			budget.deadline = before + (long) (rng.nextDouble() * 40000000);
+			int n = budget.howMany(TimeBudget.ADVANCE, wanted);
+			double leftAfter = budget.deadline - System.nanoTime();
+
+			String what = "run " + run + ": " + n + " of " + wanted;
+			assertTrue(what, n >= 0 && n <= wanted);
+			// what it committed to fits in what was left when it was asked...
+			assertTrue(what, budget.estimateNanos(TimeBudget.ADVANCE, n) <= budget.deadline - before);
+			// ...and one more would not have
+			if (n < wanted) assertTrue(what, budget.estimateNanos(TimeBudget.ADVANCE, n + 1) > leftAfter);
+		}
+	}
+
+	@Test
+	public void howManyGivesNothingWhenThereIsNoTime() {
+		TimeBudget budget = new TimeBudget(0.05, 0);
+		budget.observe(TimeBudget.ADVANCE, 100000);
+		budget.deadline = System.nanoTime() - 1;
+		assertEquals(0, budget.howMany(TimeBudget.ADVANCE, 10));
+		budget.deadline = System.nanoTime() + 40000000;
+		budget.stop();
+		assertEquals(0, budget.howMany(TimeBudget.ADVANCE, 10));
+		budget.resume();
+		assertEquals(0, budget.howMany(TimeBudget.ADVANCE, 0));
+	}
+
+	@Test
+	public void howManyTriesOneBeforeItHasMeasured() {
+		TimeBudget budget = new TimeBudget(0.05, 0);
+		budget.deadline = System.nanoTime() + 40000000;
+		assertEquals(1, budget.howMany(TimeBudget.ADVANCE, 10));
+		budget.observe(TimeBudget.ADVANCE, 1000000);
+		assertTrue(budget.howMany(TimeBudget.ADVANCE, 10) > 1);
+	}
+
+	@Test
+	public void howManyCountsIterationsInTheFixedMode() {
+		TimeBudget budget = new TimeBudget(0.05, 0, 3);
+		budget.startTick(timer(0));
+		assertEquals(50, budget.howMany(TimeBudget.ADVANCE, 50));
+		assertEquals(3, budget.howMany(TimeBudget.ITERATION, 10));
+		budget.record(TimeBudget.ITERATION, budget.start());
+		assertEquals(2, budget.howMany(TimeBudget.ITERATION, 10));
+	}
+
+	@Test
+	public void halvesOnlyWhatKeptTheWorkOut() {
+		TimeBudget budget = new TimeBudget(0.05, 0);
+		budget.observe(TimeBudget.ITERATION, 60000000);
+		budget.observe(TimeBudget.ADVANCE, 3000000);
+		double iteration = budget.estimateNanos(TimeBudget.ITERATION);
+		double advance = budget.estimateNanos(TimeBudget.ADVANCE);
+
+		// no iteration fitted: only the iteration's estimate is halved, tick after tick
+		budget.startTick(timer(40));
+		budget.startTick(timer(40));
+		budget.startTick(timer(40));
+		assertEquals(iteration / 8, budget.estimateNanos(TimeBudget.ITERATION), 1);
+		assertEquals(advance, budget.estimateNanos(TimeBudget.ADVANCE), 1);
+
+		// an iteration fitted, but no advance did inside of it: now that estimate is halved
+		budget.record(TimeBudget.ITERATION, budget.start());
+		budget.startTick(timer(40));
+		assertEquals(advance / 2, budget.estimateNanos(TimeBudget.ADVANCE), 1);
+	}
+
+	static ElapsedCpuTimer timer(long millis) {
+		ElapsedCpuTimer timer = new ElapsedCpuTimer();
+		timer.setMaxTimeMillis(millis);
+		return timer;
+	}
+}